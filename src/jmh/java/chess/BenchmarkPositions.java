@@ -0,0 +1,49 @@
+package chess;
+
+/**
+ * The positions every benchmark runs over, grouped by game phase
+ */
+public final class BenchmarkPositions {
+	public static final String OPENING = "opening";
+	public static final String MIDDLEGAME = "middlegame";
+	public static final String ENDGAME = "endgame";
+
+	private static final String[] OPENING_FENS = {
+		"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1",
+		"r1bqkbnr/pppp1ppp/2n5/1B2p3/4P3/5N2/PPPP1PPP/RNBQK2R b - - 3 3",
+		"rnbqkb1r/pp2pppp/3p1n2/8/3NP3/8/PPP2PPP/RNBQKB1R w - - 1 5",
+		// Checkmated, so there is no legal move at all
+		"rnbqkbnr/ppppp2p/5p2/6pQ/3PP3/8/PPP2PPP/RNB1KBNR b - - 1 3",
+	};
+
+	private static final String[] MIDDLEGAME_FENS = {
+		"r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+		"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w - - 0 1",
+		"r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N1PN2/PP3PPP/R2QKB1R w - - 0 8",
+		// In check, so only blocks, captures and king steps are legal
+		"rnbqkbnr/ppp2ppp/3p4/1B2p3/4P3/5N2/PPPP1PPP/RNBQK2R b - - 1 3",
+	};
+
+	private static final String[] ENDGAME_FENS = {
+		"8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+		"8/8/2k5/5q2/5n2/8/5K2/8 b - - 0 1",
+		"8/5pk1/6p1/8/3R4/6P1/5PK1/3r4 w - - 0 40",
+		"4k3/8/8/8/8/8/4P3/4K3 w - - 0 1",
+	};
+
+	private BenchmarkPositions() {
+	}
+
+	/**
+	 * @param phase One of {@link #OPENING}, {@link #MIDDLEGAME} or {@link #ENDGAME}
+	 * @return Fresh game states for the positions of that phase
+	 */
+	public static GameState[] load(String phase) {
+		String[] fens = OPENING.equals(phase) ? OPENING_FENS : MIDDLEGAME.equals(phase) ? MIDDLEGAME_FENS : ENDGAME_FENS;
+		GameState[] states = new GameState[fens.length];
+		for (int i = 0; i < fens.length; i++) {
+			states[i] = GameState.fromFen(fens[i]);
+		}
+		return states;
+	}
+}
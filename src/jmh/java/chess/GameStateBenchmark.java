@@ -0,0 +1,126 @@
+package chess;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import chess.pieces.move.Move;
+import chess.pieces.move.MoveList;
+
+/**
+ * Whole-position operations of GameState.  Each invocation runs over every position of the phase.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 15, time = 1)
+@Fork(4)
+public class GameStateBenchmark {
+
+	@Param({BenchmarkPositions.OPENING, BenchmarkPositions.MIDDLEGAME, BenchmarkPositions.ENDGAME})
+	public String phase;
+
+	private GameState[] states;
+	private String[] moveFrom;
+	private String[] moveTo;
+	private final MoveList moves = new MoveList();
+
+	@Setup
+	public void setUp() {
+		states = BenchmarkPositions.load(phase);
+		moveFrom = new String[states.length];
+		moveTo = new String[states.length];
+		for (int i = 0; i < states.length; i++) {
+			moves.clear();
+			// The checkmated position has no move to make
+			if (states[i].generateMoves(moves) > 0) {
+				moveFrom[i] = Position.of(Move.from(moves.get(0))).toString();
+				moveTo[i] = Position.of(Move.to(moves.get(0))).toString();
+			}
+		}
+	}
+
+	@Benchmark
+	public void getCurrentPossibleMoves(Blackhole blackhole) {
+		for (GameState state : states) {
+			blackhole.consume(state.getCurrentPossibleMoves());
+		}
+	}
+
+	@Benchmark
+	public int generateMoves() {
+		int count = 0;
+		for (GameState state : states) {
+			moves.clear();
+			count += state.generateMoves(moves);
+		}
+		return count;
+	}
+
+	/**
+	 * Validating and making a move, including the checkmate test, then taking it back
+	 */
+	@Benchmark
+	public boolean movePiece() {
+		boolean moved = true;
+		for (int i = 0; i < states.length; i++) {
+			if (moveFrom[i] != null) {
+				moved &= states[i].movePiece(moveFrom[i], moveTo[i]);
+				states[i].unmakeMove();
+			}
+		}
+		return moved;
+	}
+
+	/**
+	 * Making and taking back every legal move, with the incremental updates each one does
+	 */
+	@Benchmark
+	public long makeMove() {
+		long hash = 0L;
+		for (GameState state : states) {
+			moves.clear();
+			int count = state.generateMoves(moves);
+			for (int i = 0; i < count; i++) {
+				state.makeMove(moves.get(i));
+				hash ^= state.hashKey();
+				state.unmakeMove();
+			}
+		}
+		return hash;
+	}
+
+	@Benchmark
+	public int isInCheckMate() {
+		int mates = 0;
+		for (GameState state : states) {
+			if (state.isInCheckMate()) {
+				mates++;
+			}
+		}
+		return mates;
+	}
+
+	@Benchmark
+	public int isInCheck() {
+		int checks = 0;
+		for (GameState state : states) {
+			if (state.isInCheck(state.getCurrentPlayer())) {
+				checks++;
+			}
+		}
+		return checks;
+	}
+}
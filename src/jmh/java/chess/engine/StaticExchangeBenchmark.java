@@ -0,0 +1,73 @@
+package chess.engine;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chess.BenchmarkPositions;
+import chess.GameState;
+import chess.Position;
+import chess.pieces.move.Move;
+import chess.pieces.move.MoveList;
+
+/**
+ * Static exchange evaluation of every capture the player to move has, as the quiescence search runs it.  Each
+ * invocation runs over every position of the phase.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 15, time = 1)
+@Fork(4)
+public class StaticExchangeBenchmark {
+
+	@Param({BenchmarkPositions.OPENING, BenchmarkPositions.MIDDLEGAME, BenchmarkPositions.ENDGAME})
+	public String phase;
+
+	private GameState[] states;
+	private int[][] captures;
+	private final StaticExchange exchange = new StaticExchange();
+
+	@Setup
+	public void setUp() {
+		states = BenchmarkPositions.load(phase);
+		captures = new int[states.length][];
+		MoveList moves = new MoveList();
+		for (int i = 0; i < states.length; i++) {
+			moves.clear();
+			int count = states[i].generateMoves(moves);
+			int[] found = new int[count];
+			int size = 0;
+			for (int j = 0; j < count; j++) {
+				int move = moves.get(j);
+				if (states[i].getPieceAt(Position.of(Move.to(move))) != null) {
+					found[size++] = move;
+				}
+			}
+			captures[i] = Arrays.copyOf(found, size);
+		}
+	}
+
+	@Benchmark
+	public int evaluate() {
+		int total = 0;
+		for (int i = 0; i < states.length; i++) {
+			for (int move : captures[i]) {
+				total += exchange.evaluate(states[i], move);
+			}
+		}
+		return total;
+	}
+}
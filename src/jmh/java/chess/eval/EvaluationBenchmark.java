@@ -0,0 +1,59 @@
+package chess.eval;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chess.BenchmarkPositions;
+import chess.GameState;
+
+/**
+ * Reading the evaluation kept up to date by GameState, against working it out from the board.  Each invocation
+ * runs over every position of the phase.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 15, time = 1)
+@Fork(4)
+public class EvaluationBenchmark {
+
+	@Param({BenchmarkPositions.OPENING, BenchmarkPositions.MIDDLEGAME, BenchmarkPositions.ENDGAME})
+	public String phase;
+
+	private GameState[] states;
+
+	@Setup
+	public void setUp() {
+		states = BenchmarkPositions.load(phase);
+	}
+
+	@Benchmark
+	public int score() {
+		int total = 0;
+		for (GameState state : states) {
+			total += state.getEvaluation().score(state.getCurrentPlayer());
+		}
+		return total;
+	}
+
+	@Benchmark
+	public int evaluate() {
+		int total = 0;
+		for (GameState state : states) {
+			total += Evaluation.evaluate(state.getBoard(), state.getCurrentPlayer());
+		}
+		return total;
+	}
+}
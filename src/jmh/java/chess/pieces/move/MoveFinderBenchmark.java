@@ -0,0 +1,85 @@
+package chess.pieces.move;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import chess.BenchmarkPositions;
+import chess.GameState;
+import chess.Position;
+import chess.pieces.Piece;
+import chess.pieces.PieceType;
+
+/**
+ * Move finding for one kind of piece.  Each invocation finds the moves of every piece of that kind, of both players,
+ * in every position of the phase.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 15, time = 1)
+@Fork(4)
+public class MoveFinderBenchmark {
+
+	@Param({"Pawn", "Knight", "Bishop", "Rook", "Queen", "King"})
+	public PieceType type;
+
+	@Param({BenchmarkPositions.OPENING, BenchmarkPositions.MIDDLEGAME, BenchmarkPositions.ENDGAME})
+	public String phase;
+
+	private GameState[] states;
+	private Piece[] pieces;
+	private Position[] positions;
+	private final MoveList moves = new MoveList();
+
+	@Setup
+	public void setUp() {
+		List<GameState> stateList = new ArrayList<GameState>();
+		List<Piece> pieceList = new ArrayList<Piece>();
+		List<Position> positionList = new ArrayList<Position>();
+		for (GameState state : BenchmarkPositions.load(phase)) {
+			for (int square = 0; square < Position.SQUARE_COUNT; square++) {
+				Piece piece = state.getPieceAt(Position.of(square));
+				if (piece != null && piece.getType() == type) {
+					stateList.add(state);
+					pieceList.add(piece);
+					positionList.add(Position.of(square));
+				}
+			}
+		}
+		states = stateList.toArray(new GameState[stateList.size()]);
+		pieces = pieceList.toArray(new Piece[pieceList.size()]);
+		positions = positionList.toArray(new Position[positionList.size()]);
+	}
+
+	@Benchmark
+	public void findMoves(Blackhole blackhole) {
+		for (int i = 0; i < pieces.length; i++) {
+			blackhole.consume(pieces[i].getMoveFinder().findMoves(states[i], positions[i]));
+		}
+	}
+
+	@Benchmark
+	public int findMovesPacked() {
+		moves.clear();
+		int count = 0;
+		for (int i = 0; i < pieces.length; i++) {
+			count += pieces[i].getMoveFinder().findMoves(states[i], positions[i].index(), moves);
+		}
+		return count;
+	}
+}
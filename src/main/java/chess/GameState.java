@@ -1,15 +1,20 @@
 package chess;
 
 
+import chess.board.Attacks;
+import chess.board.BitBoard;
+import chess.board.Board;
+import chess.board.Zobrist;
+import chess.eval.Evaluation;
 import chess.pieces.*;
-import chess.pieces.move.Direction;
+import chess.pieces.move.Move;
+import chess.pieces.move.MoveList;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * Class that represents the current state of the game.  Basically, what pieces are in which positions on the
@@ -22,19 +27,121 @@ public class GameState {
     protected Player currentPlayer = Player.White;
 
     /**
-     * A map of board positions to pieces at that position
+     * The pieces at each board position
      */
-    protected Map<Position, Piece> positionToPieceMap;
+    protected Board board;
     
     protected Position whiteKingPos;
     protected Position blackKingPos;
     private boolean isOver = false;
 
+    /**
+     * Set when a position is loaded from FEN: whether it is over is only worked out when first asked
+     */
+    private boolean isOverPending = false;
+
+    /**
+     * The moves since the last capture or pawn move, and the number of the move being played, as in FEN
+     */
+    private int halfmoveClock = 0;
+    private int fullmoveNumber = 1;
+
+    /**
+     * The position the moves on the undo stack start from in FEN, or null for the initial position; kept as given to
+     * {@link #loadFen}, not copied
+     */
+    private CharSequence startFen = null;
+
+    /**
+     * Zobrist hash of the pieces and the player to move, kept up to date as they change
+     */
+    private long hashKey = 0L;
+
+    /**
+     * Undo stack for {@link #makeMove(int)}; one entry per move made, kept in preallocated parallel arrays
+     */
+    private static final int UNDO_CAPACITY = 256;
+    private int[] undoMoves = new int[UNDO_CAPACITY];
+    private Piece[] undoCaptured = new Piece[UNDO_CAPACITY];
+    private Position[] undoWhiteKingPos = new Position[UNDO_CAPACITY];
+    private Position[] undoBlackKingPos = new Position[UNDO_CAPACITY];
+    private Player[] undoPlayer = new Player[UNDO_CAPACITY];
+    private boolean[] undoIsOver = new boolean[UNDO_CAPACITY];
+    private int[] undoHalfmoveClock = new int[UNDO_CAPACITY];
+    private int undoSize = 0;
+
+    /**
+     * Scratch space of the move generator: the line each pinned piece is held on, by square, and a move list for
+     * the end-of-game tests
+     */
+    private final long[] pinRays = new long[Position.SQUARE_COUNT];
+    private final MoveList scratchMoves = new MoveList();
+
+    /**
+     * Attack maps, kept up to date by {@link #placePiece} and {@link #removeAtPosition}: the squares attacked by the
+     * piece on each square, how many pieces of each player attack each square, and per player the squares with a
+     * count above zero.  Only sliders whose lines run through a changed square are looked at again.
+     */
+    private final long[] attacksFrom = new long[Position.SQUARE_COUNT];
+    private final int[] attackCounts = new int[2 * Position.SQUARE_COUNT];
+    private final long[] attacked = new long[2];
+
+    /**
+     * Material and piece-square score, kept up to date along with the hash
+     */
+    private final Evaluation evaluation = new Evaluation();
+
+    /**
+     * Pieces hold no state of their own, so positions set up from FEN share these, by owner and type
+     */
+    private static final int TYPE_COUNT = PieceType.values().length;
+    private static final Piece[] SHARED_PIECES = new Piece[2 * TYPE_COUNT];
+    static {
+        for (Player owner : Player.values()) {
+            for (PieceType type : PieceType.values()) {
+                SHARED_PIECES[owner.ordinal() * TYPE_COUNT + type.ordinal()] = type.newPiece(owner);
+            }
+        }
+    }
+
+    private static final String FEN_PIECES = "pnbrqk";
+
     /**
      * Create the game state.
      */
     public GameState() {
-        positionToPieceMap = new HashMap<Position, Piece>();
+        this(new BitBoard());
+    }
+
+    /**
+     * Create the game state on top of a specific board representation.
+     * @param board The (empty) board to keep the pieces in
+     */
+    public GameState(Board board) {
+        this.board = board;
+    }
+
+    /**
+     * Creates an independent copy of the position, for example for another thread to search.  The copy holds the
+     * same pieces, player to move and game-over flag on a {@link BitBoard}, but none of the move history, so it
+     * cannot take back moves made before the copy.
+     * @return The copy
+     */
+    public GameState copy() {
+        GameState copy = new GameState();
+        copy.currentPlayer = currentPlayer;
+        copy.clearBoard();
+        long pieces = board.getOccupied();
+        while (pieces != 0) {
+            Position position = Position.of(Long.numberOfTrailingZeros(pieces));
+            pieces &= pieces - 1;
+            copy.placePiece(board.getPieceAt(position), position);
+        }
+        copy.isOver = isOver();
+        copy.halfmoveClock = halfmoveClock;
+        copy.fullmoveNumber = fullmoveNumber;
+        copy.startFen = (undoSize == 0) ? startFen : toFen();
+        return copy;
     }
 
     public Player getCurrentPlayer() {
@@ -42,6 +149,10 @@ public class GameState {
     }
     
     public boolean isOver() {
+    	if (isOverPending) {
+    		isOver = !hasLegalMove();
+    		isOverPending = false;
+    	}
     	return isOver;
     }
 
@@ -49,47 +160,218 @@ public class GameState {
      * Call to initialize the game state into the starting positions
      */
     public void reset() {
-        positionToPieceMap = new HashMap<Position, Piece>();
+        clearBoard();
         // White Pieces
-        placePiece(new Rook(Player.White), new Position("a1"));
-        placePiece(new Knight(Player.White), new Position("b1"));
-        placePiece(new Bishop(Player.White), new Position("c1"));
-        placePiece(new Queen(Player.White), new Position("d1"));
-        placePiece(new King(Player.White), new Position("e1"));
-        whiteKingPos = new Position("e1");
-        placePiece(new Bishop(Player.White), new Position("f1"));
-        placePiece(new Knight(Player.White), new Position("g1"));
-        placePiece(new Rook(Player.White), new Position("h1"));
-        placePiece(new Pawn(Player.White), new Position("a2"));
-        placePiece(new Pawn(Player.White), new Position("b2"));
-        placePiece(new Pawn(Player.White), new Position("c2"));
-        placePiece(new Pawn(Player.White), new Position("d2"));
-        placePiece(new Pawn(Player.White), new Position("e2"));
-        placePiece(new Pawn(Player.White), new Position("f2"));
-        placePiece(new Pawn(Player.White), new Position("g2"));
-        placePiece(new Pawn(Player.White), new Position("h2"));
+        placePiece(new Rook(Player.White), Position.of("a1"));
+        placePiece(new Knight(Player.White), Position.of("b1"));
+        placePiece(new Bishop(Player.White), Position.of("c1"));
+        placePiece(new Queen(Player.White), Position.of("d1"));
+        placePiece(new King(Player.White), Position.of("e1"));
+        whiteKingPos = Position.of("e1");
+        placePiece(new Bishop(Player.White), Position.of("f1"));
+        placePiece(new Knight(Player.White), Position.of("g1"));
+        placePiece(new Rook(Player.White), Position.of("h1"));
+        placePiece(new Pawn(Player.White), Position.of("a2"));
+        placePiece(new Pawn(Player.White), Position.of("b2"));
+        placePiece(new Pawn(Player.White), Position.of("c2"));
+        placePiece(new Pawn(Player.White), Position.of("d2"));
+        placePiece(new Pawn(Player.White), Position.of("e2"));
+        placePiece(new Pawn(Player.White), Position.of("f2"));
+        placePiece(new Pawn(Player.White), Position.of("g2"));
+        placePiece(new Pawn(Player.White), Position.of("h2"));
 
         // Black Pieces
-        placePiece(new Rook(Player.Black), new Position("a8"));
-        placePiece(new Knight(Player.Black), new Position("b8"));
-        placePiece(new Bishop(Player.Black), new Position("c8"));
-        placePiece(new Queen(Player.Black), new Position("d8"));
-        placePiece(new King(Player.Black), new Position("e8"));
-        blackKingPos = new Position("e8");
-        placePiece(new Bishop(Player.Black), new Position("f8"));
-        placePiece(new Knight(Player.Black), new Position("g8"));
-        placePiece(new Rook(Player.Black), new Position("h8"));
-        placePiece(new Pawn(Player.Black), new Position("a7"));
-        placePiece(new Pawn(Player.Black), new Position("b7"));
-        placePiece(new Pawn(Player.Black), new Position("c7"));
-        placePiece(new Pawn(Player.Black), new Position("d7"));
-        placePiece(new Pawn(Player.Black), new Position("e7"));
-        placePiece(new Pawn(Player.Black), new Position("f7"));
-        placePiece(new Pawn(Player.Black), new Position("g7"));
-        placePiece(new Pawn(Player.Black), new Position("h7"));
+        placePiece(new Rook(Player.Black), Position.of("a8"));
+        placePiece(new Knight(Player.Black), Position.of("b8"));
+        placePiece(new Bishop(Player.Black), Position.of("c8"));
+        placePiece(new Queen(Player.Black), Position.of("d8"));
+        placePiece(new King(Player.Black), Position.of("e8"));
+        blackKingPos = Position.of("e8");
+        placePiece(new Bishop(Player.Black), Position.of("f8"));
+        placePiece(new Knight(Player.Black), Position.of("g8"));
+        placePiece(new Rook(Player.Black), Position.of("h8"));
+        placePiece(new Pawn(Player.Black), Position.of("a7"));
+        placePiece(new Pawn(Player.Black), Position.of("b7"));
+        placePiece(new Pawn(Player.Black), Position.of("c7"));
+        placePiece(new Pawn(Player.Black), Position.of("d7"));
+        placePiece(new Pawn(Player.Black), Position.of("e7"));
+        placePiece(new Pawn(Player.Black), Position.of("f7"));
+        placePiece(new Pawn(Player.Black), Position.of("g7"));
+        placePiece(new Pawn(Player.Black), Position.of("h7"));
         
         isOver = false;
-        currentPlayer = Player.White;
+        isOverPending = false;
+        if (currentPlayer != Player.White) {
+            switchPlayer();
+        }
+        undoSize = 0;
+        halfmoveClock = 0;
+        fullmoveNumber = 1;
+        startFen = null;
+    }
+
+    /**
+     * Creates a game state holding a position in Forsyth-Edwards Notation
+     * @param fen The position, i.e. "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b - - 0 1"
+     * @return The game state
+     * @throws IllegalArgumentException If the string is not a valid position
+     */
+    public static GameState fromFen(String fen) {
+        GameState state = new GameState();
+        state.loadFen(fen);
+        return state;
+    }
+
+    /**
+     * Sets up a position in Forsyth-Edwards Notation, forgetting the moves made so far.  The castling and en passant
+     * fields are checked but ignored, since the game has neither.  The move counters may be left out, as in EPD,
+     * and anything after them is ignored.
+     * <p>
+     * Nothing is allocated, so one state can load position after position: the text is kept for
+     * {@link #getStartFen()} rather than copied, so a buffer passed in must not change while the game is played from
+     * it.  Whether the game is over is only worked out when {@link #isOver()} is called or a move is made.
+     * @param fen The position
+     * @throws IllegalArgumentException If the string is not a valid position, including one without exactly one king
+     * a side or with a pawn on its own first rank; the state is then left cleared
+     */
+    public void loadFen(CharSequence fen) {
+    	currentPlayer = Player.White;
+    	clearBoard();
+    	whiteKingPos = null;
+    	blackKingPos = null;
+    	undoSize = 0;
+    	isOver = false;
+    	isOverPending = false;
+    	startFen = null;
+
+    	int length = fen.length();
+    	int i = skipSpaces(fen, 0);
+    	int row = Position.MAX_ROW - 1;
+    	int column = 0;
+    	for (; i < length && fen.charAt(i) != ' '; i++) {
+    		char c = fen.charAt(i);
+    		if (c == '/') {
+    			if (column != 8 || row == 0) {
+    				throw invalidFen(fen);
+    			}
+    			row--;
+    			column = 0;
+    		} else if (c >= '1' && c <= '8') {
+    			column += c - '0';
+    		} else {
+    			int type = FEN_PIECES.indexOf(Character.toLowerCase(c));
+    			if (type < 0 || column >= 8) {
+    				throw invalidFen(fen);
+    			}
+    			Player owner = Character.isUpperCase(c) ? Player.White : Player.Black;
+    			// A pawn can never stand on its own first rank; without promotion it may stand on the last one
+    			if (type == PieceType.Pawn.ordinal() && row == (owner == Player.White ? 0 : Position.MAX_ROW - 1)) {
+    				throw invalidFen(fen);
+    			}
+    			if (type == PieceType.King.ordinal() && (owner == Player.White ? whiteKingPos : blackKingPos) != null) {
+    				throw invalidFen(fen);
+    			}
+    			placePiece(SHARED_PIECES[owner.ordinal() * TYPE_COUNT + type], Position.of(row * 8 + column));
+    			column++;
+    		}
+    		if (column > 8) {
+    			throw invalidFen(fen);
+    		}
+    	}
+    	if (row != 0 || column != 8 || whiteKingPos == null || blackKingPos == null) {
+    		throw invalidFen(fen);
+    	}
+
+    	i = skipSpaces(fen, i);
+    	if (i >= length || (fen.charAt(i) != 'w' && fen.charAt(i) != 'b')) {
+    		throw invalidFen(fen);
+    	}
+    	if (fen.charAt(i++) == 'b') {
+    		switchPlayer();
+    	}
+
+    	// Castling rights and the en passant square
+    	i = skipSpaces(fen, i);
+    	for (; i < length && fen.charAt(i) != ' '; i++) {
+    		if ("KQkq-".indexOf(fen.charAt(i)) < 0) {
+    			throw invalidFen(fen);
+    		}
+    	}
+    	i = skipSpaces(fen, i);
+    	for (; i < length && fen.charAt(i) != ' '; i++) {
+    		if ("abcdefgh36-".indexOf(fen.charAt(i)) < 0) {
+    			throw invalidFen(fen);
+    		}
+    	}
+
+    	halfmoveClock = 0;
+    	fullmoveNumber = 1;
+    	i = skipSpaces(fen, i);
+    	if (i < length && Character.isDigit(fen.charAt(i))) {
+    		int clock = 0;
+    		for (; i < length && Character.isDigit(fen.charAt(i)); i++) {
+    			clock = clock * 10 + (fen.charAt(i) - '0');
+    		}
+    		i = skipSpaces(fen, i);
+    		int number = 0;
+    		for (; i < length && Character.isDigit(fen.charAt(i)); i++) {
+    			number = number * 10 + (fen.charAt(i) - '0');
+    		}
+    		halfmoveClock = clock;
+    		fullmoveNumber = Math.max(1, number);
+    	}
+    	startFen = fen;
+    	isOverPending = true;
+    }
+
+    private static int skipSpaces(CharSequence text, int index) {
+    	while (index < text.length() && text.charAt(index) == ' ') {
+    		index++;
+    	}
+    	return index;
+    }
+
+    /**
+     * Clears the half loaded position
+     * @return The exception to throw
+     */
+    private IllegalArgumentException invalidFen(CharSequence fen) {
+    	clearBoard();
+    	whiteKingPos = null;
+    	blackKingPos = null;
+    	return new IllegalArgumentException("Invalid FEN: " + fen);
+    }
+
+    /**
+     * @return The position in Forsyth-Edwards Notation; there are never castling rights or an en passant square
+     */
+    public String toFen() {
+    	StringBuilder fen = new StringBuilder(90);
+    	for (int row = Position.MAX_ROW - 1; row >= 0; row--) {
+    		int empty = 0;
+    		for (int column = 0; column < 8; column++) {
+    			Piece piece = board.getPieceAt(Position.of(row * 8 + column));
+    			if (piece == null) {
+    				empty++;
+    				continue;
+    			}
+    			if (empty > 0) {
+    				fen.append(empty);
+    				empty = 0;
+    			}
+    			char c = FEN_PIECES.charAt(piece.getType().ordinal());
+    			fen.append(piece.getOwner() == Player.White ? Character.toUpperCase(c) : c);
+    		}
+    		if (empty > 0) {
+    			fen.append(empty);
+    		}
+    		if (row > 0) {
+    			fen.append('/');
+    		}
+    	}
+    	fen.append(currentPlayer == Player.White ? " w - - " : " b - - ");
+    	fen.append(halfmoveClock).append(' ').append(fullmoveNumber);
+    	return fen.toString();
     }
 
     /**
@@ -98,8 +380,8 @@ public class GameState {
      * @return The piece at that position, or null if it does not exist.
      */
     public Piece getPieceAt(String colrow) {
-        Position position = new Position(colrow);
-        return getPieceAt(position);
+        Position position = Position.of(colrow);
+        return position == null ? null : getPieceAt(position);
     }
 
     /**
@@ -108,263 +390,385 @@ public class GameState {
      * @return The piece at that position, or null if it does not exist.
      */
     public Piece getPieceAt(Position position) {
-        return positionToPieceMap.get(position);
+        return board.getPieceAt(position);
     }
 
     /**
-     * Moves a piece to another location
+     * @return The board representation holding the pieces
+     */
+    public Board getBoard() {
+        return board;
+    }
+
+    /**
+     * Moves a piece to another location, if that is one of the legal moves of the current player (see
+     * {@link #generateMoves(MoveList)}), and looks for checkmate
      * @param fromString origin position
      * @param toString destination position
      * @return false if the move is not permitted
      */
     public boolean movePiece(String fromString, String toString) {
-    	Position from = new Position(fromString);
-    	Position to = new Position(toString);
-    	Piece piece = getPieceAt(from);
-    	if (piece != null && piece.getOwner() == currentPlayer) {
-    		List<Position> possibleMoves = piece.getMoveFinder().findMoves(this, from);
-    		if (possibleMoves.contains(to)) {
-    			removeAtPosition(from);
-    			placePiece(piece, to);
-    			
-    			boolean kingCaptured = false;
-    			if (currentPlayer == Player.Black) {
-    				if (whiteKingPos.equals(to)) {
-    					kingCaptured = true;
-    				}
-    				currentPlayer = Player.White;
-    			} else {
-    				if (blackKingPos.equals(to)) {
-    					kingCaptured = true;
-    				}
-    				currentPlayer = Player.Black;
-    			}
-
-    			isOver = kingCaptured || isInCheckMate();
-
+    	Position from = Position.of(fromString);
+    	Position to = Position.of(toString);
+    	if (from == null || to == null) {
+    		return false;
+    	}
+    	scratchMoves.clear();
+    	int count = generateMoves(scratchMoves);
+    	for (int i = 0; i < count; i++) {
+    		int move = scratchMoves.get(i);
+    		if (Move.from(move) == from.index() && Move.to(move) == to.index()) {
+    			boolean kingCaptured = getPieceAt(to) instanceof King;
+    			makeMove(move);
+    			isOver = kingCaptured || !hasLegalMove();
     			return true;
     		}
     	}
     	return false;
     }
     
+    /**
+     * Makes a move without checking that it is allowed, and without looking for checkmate.  The move can be taken
+     * back with {@link #unmakeMove()}.  Capturing a king ends the game.
+     * @param move The packed move (see {@link Move}); only the origin and destination are used
+     */
+    public void makeMove(int move) {
+    	Position from = Position.of(Move.from(move));
+    	Position to = Position.of(Move.to(move));
+    	Piece piece = board.getPieceAt(from);
+    	Piece captured = board.getPieceAt(to);
+
+    	if (undoSize == undoMoves.length) {
+    		growUndoStack();
+    	}
+    	if (isOverPending) {
+    		isOver();
+    	}
+    	undoMoves[undoSize] = move;
+    	undoCaptured[undoSize] = captured;
+    	undoWhiteKingPos[undoSize] = whiteKingPos;
+    	undoBlackKingPos[undoSize] = blackKingPos;
+    	undoPlayer[undoSize] = currentPlayer;
+    	undoIsOver[undoSize] = isOver;
+    	undoHalfmoveClock[undoSize] = halfmoveClock;
+    	undoSize++;
+
+    	halfmoveClock = (captured != null || piece instanceof Pawn) ? 0 : halfmoveClock + 1;
+    	if (currentPlayer == Player.Black) {
+    		fullmoveNumber++;
+    	}
+
+    	if (captured != null) {
+    		removeAtPosition(to);
+    		if (captured instanceof King) {
+    			isOver = true;
+    		}
+    	}
+    	removeAtPosition(from);
+    	placePiece(piece, to);
+    	switchPlayer();
+    }
+
+    /**
+     * Takes back the last move made with {@link #makeMove(int)} (or {@link #movePiece(String, String)}).
+     */
+    public void unmakeMove() {
+    	undoSize--;
+    	int move = undoMoves[undoSize];
+    	Position from = Position.of(Move.from(move));
+    	Position to = Position.of(Move.to(move));
+    	Piece piece = board.getPieceAt(to);
+
+    	removeAtPosition(to);
+    	placePiece(piece, from);
+    	Piece captured = undoCaptured[undoSize];
+    	if (captured != null) {
+    		placePiece(captured, to);
+    		undoCaptured[undoSize] = null;
+    	}
+    	whiteKingPos = undoWhiteKingPos[undoSize];
+    	blackKingPos = undoBlackKingPos[undoSize];
+    	if (currentPlayer != undoPlayer[undoSize]) {
+    		switchPlayer();
+    	}
+    	isOver = undoIsOver[undoSize];
+    	halfmoveClock = undoHalfmoveClock[undoSize];
+    	if (currentPlayer == Player.Black) {
+    		fullmoveNumber--;
+    	}
+    }
+
+    /**
+     * @return The Zobrist hash of the position: the pieces on the board and the player to move
+     */
+    public long hashKey() {
+    	return hashKey;
+    }
+
+    /**
+     * @return The static evaluation of the position, kept up to date as pieces move
+     */
+    public Evaluation getEvaluation() {
+    	return evaluation;
+    }
+
+    /**
+     * @return The number of moves that can be taken back with {@link #unmakeMove()}
+     */
+    public int getMoveCount() {
+    	return undoSize;
+    }
+
+    /**
+     * @param index The number of the move, 0 for the first of those that can be taken back
+     * @return The packed move
+     */
+    public int getMove(int index) {
+    	if (index < 0 || index >= undoSize) {
+    		throw new IndexOutOfBoundsException("No move " + index + " of " + undoSize);
+    	}
+    	return undoMoves[index];
+    }
+
+    /**
+     * @return The position the moves of {@link #getMove(int)} start from in FEN, as it was set up, or null if they
+     * start from the initial position
+     */
+    public String getStartFen() {
+    	return startFen == null ? null : startFen.toString();
+    }
+
+    private void growUndoStack() {
+    	int capacity = undoMoves.length * 2;
+    	undoMoves = Arrays.copyOf(undoMoves, capacity);
+    	undoCaptured = Arrays.copyOf(undoCaptured, capacity);
+    	undoWhiteKingPos = Arrays.copyOf(undoWhiteKingPos, capacity);
+    	undoBlackKingPos = Arrays.copyOf(undoBlackKingPos, capacity);
+    	undoPlayer = Arrays.copyOf(undoPlayer, capacity);
+    	undoIsOver = Arrays.copyOf(undoIsOver, capacity);
+    	undoHalfmoveClock = Arrays.copyOf(undoHalfmoveClock, capacity);
+    }
+
     /**
      * Returns all possible movement of the current player.
      * @return
      */
     public Map<Position, List<Position>> getCurrentPossibleMoves() {
-    	return getPossibleMoves(currentPlayer);
+    	Map<Position, List<Position>> totalMoves = new HashMap<Position, List<Position>>();
+    	MoveList moves = new MoveList();
+    	generateMoves(moves);
+    	for (int i = 0; i < moves.size(); i++) {
+    		int move = moves.get(i);
+    		Position from = Position.of(Move.from(move));
+    		List<Position> possibleMoves = totalMoves.get(from);
+    		if (possibleMoves == null) {
+    			possibleMoves = new ArrayList<Position>();
+    			totalMoves.put(from, possibleMoves);
+    		}
+    		possibleMoves.add(Position.of(Move.to(move)));
+    	}
+    	
+    	return totalMoves;
     }
-    
+
     /**
-     * This is used to check if the current player in is checkmate.
-     * 
-     * @return true if the current player loses due to checkmate
+     * Appends the legal moves of the current player to the list as packed moves (see {@link Move}): none of them
+     * leaves the player's own king attacked.  Nothing is allocated as long as the list has room.
+     * <p>
+     * Checkers and pinned pieces are worked out once for the position, so no move has to be tried out.  A player
+     * without a king on the board gets every move its pieces can make.
+     * @param moves The list to append to
+     * @return The number of moves appended
      */
-    private boolean isInCheckMate() {
-    	Set<Position> attackerMap = findAttackerMovement();
-    	Position targetKingPos = (currentPlayer == Player.Black)? blackKingPos: whiteKingPos;
-
-		//At this point we have all paths to enemy, check if there is paths
-		if (attackerMap.size() > 0) {
-    		Piece targetKing = getPieceAt(targetKingPos);
-
-    		//First king tries escaping
-    		Map<Position, List<Position>> friendsMoves = getPossibleMoves(currentPlayer);
-    		List<Position> possibleEscape = friendsMoves.get(targetKingPos);
-    		if (possibleEscape != null) {
-    			for (Position p : possibleEscape) {
-    				if (!isInCheckAfterMove(p, targetKing, targetKingPos, p)) {
-    					return false;
-    				}
-    			}
-    			friendsMoves.remove(targetKingPos);
-    		}
-    		
-    		//Try attack attack or block
-    		for (Map.Entry<Position, List<Position>> friendPair : friendsMoves.entrySet()) {
-    			Position friendPosition = friendPair.getKey();
-    			Piece friend = getPieceAt(friendPosition);
-    			for (Position friendMovePosition : friendPair.getValue()) {
-    				if (attackerMap.contains(friendMovePosition)) {
-    					if (!isInCheckAfterMove(targetKingPos, friend, friendPosition, friendMovePosition)) {
-    						return false;
-    					}
-    				}
-    			}
+    public int generateMoves(MoveList moves) {
+    	return generateMoves(-1L, moves);
+    }
+
+    /**
+     * Appends the legal captures of the current player to the list, like {@link #generateMoves(MoveList)}
+     * @param moves The list to append to
+     * @return The number of moves appended
+     */
+    public int generateCaptures(MoveList moves) {
+    	return generateMoves(board.getOccupied(currentPlayer.opponent()), moves);
+    }
+
+    /**
+     * @param targets The mask of squares to generate moves to
+     * @param moves The list to append to
+     * @return The number of moves appended
+     */
+    private int generateMoves(long targets, MoveList moves) {
+    	Player player = currentPlayer;
+    	int kingSquare = kingSquare(player);
+    	long own = board.getOccupied(player);
+    	if (kingSquare < 0) {
+    		return generateMoves(own, targets, 0L, moves);
+    	}
+    	Player enemy = player.opponent();
+    	long occupied = board.getOccupied();
+    	long kingBit = 1L << kingSquare;
+
+    	//The king may step anywhere not attacked.  The attack maps stop at the king, so a slider checking it also
+    	//covers the squares behind it, looked up with the king lifted off the board
+    	long checkers = isAttacked(kingSquare, enemy) ? attackers(kingSquare, enemy, occupied) : 0L;
+    	long kingTargets = Attacks.king(kingSquare) & targets & ~own & ~attacked[enemy.ordinal()];
+    	long sliders = checkers & ~board.getPieces(enemy, PieceType.Pawn) & ~board.getPieces(enemy, PieceType.Knight);
+    	while (sliders != 0) {
+    		int slider = Long.numberOfTrailingZeros(sliders);
+    		sliders &= sliders - 1;
+    		kingTargets &= ~attacksOf(board.getPieceAt(Position.of(slider)), slider, occupied ^ kingBit);
+    	}
+    	int count = board.getPieceAt(Position.of(kingSquare)).getMoveFinder().findMoves(this, kingSquare, kingTargets, moves);
+
+    	//In double check only the king can move; in single check the others must capture the checker or block it
+    	if ((checkers & (checkers - 1)) != 0) {
+    		return count;
+    	}
+    	long evasions = (checkers == 0) ? targets
+    			: targets & (checkers | Attacks.between(kingSquare, Long.numberOfTrailingZeros(checkers)));
+
+    	//A piece is pinned when it is the only one between the king and an enemy slider aimed at it; it can then
+    	//only move along that line
+    	long enemies = board.getOccupied(enemy);
+    	long queens = board.getPieces(enemy, PieceType.Queen);
+    	long snipers = (Attacks.rook(kingSquare, enemies) & (board.getPieces(enemy, PieceType.Rook) | queens))
+    			| (Attacks.bishop(kingSquare, enemies) & (board.getPieces(enemy, PieceType.Bishop) | queens));
+    	long pinned = 0L;
+    	while (snipers != 0) {
+    		int sniper = Long.numberOfTrailingZeros(snipers);
+    		snipers &= snipers - 1;
+    		long line = Attacks.between(kingSquare, sniper);
+    		long blockers = line & occupied;
+    		if (blockers != 0 && (blockers & (blockers - 1)) == 0 && (blockers & own) != 0) {
+    			pinned |= blockers;
+    			pinRays[Long.numberOfTrailingZeros(blockers)] = line | (1L << sniper);
     		}
-    		return true;
-		}
-		
-    	return false;
+    	}
+
+    	return count + generateMoves(own & ~kingBit, evasions, pinned, moves);
     }
-    
+
     /**
-     * Returns all paths (positions) that leads to attackers
-     * @return
+     * Appends the moves of some of the current player's pieces
+     * @param pieces The mask of the pieces to move
+     * @param allowed The mask of squares any of them may move to
+     * @param pinned The mask of pieces that must also stay on their line in {@link #pinRays}
+     * @param moves The list to append to
+     * @return The number of moves appended
      */
-    private Set<Position> findAttackerMovement() {
-    	Set<Position> attackerMap = new HashSet<Position>();
-    	
-    	Position targetKingPos = (currentPlayer == Player.Black)? blackKingPos:whiteKingPos;
-
-    	//Search open path starting from king
-    	List<Position> path = new ArrayList<Position>();
-    	findAttacker(attackerMap, path, Direction.UP, targetKingPos, 1);
-    	path.clear();
-    	findAttacker(attackerMap, path, Direction.DOWN, targetKingPos, 1);
-    	path.clear();
-    	findAttacker(attackerMap, path, Direction.LEFT, targetKingPos, 1);
-    	path.clear();
-    	findAttacker(attackerMap, path, Direction.RIGHT, targetKingPos, 1);
-    	path.clear();
-    	findAttacker(attackerMap, path, Direction.UP_LEFT, targetKingPos, 1);
-    	path.clear();
-    	findAttacker(attackerMap, path, Direction.UP_RIGHT, targetKingPos, 1);
-    	path.clear();
-    	findAttacker(attackerMap, path, Direction.DOWN_LEFT, targetKingPos, 1);
-    	path.clear();
-    	findAttacker(attackerMap, path, Direction.DOWN_RIGHT, targetKingPos, 1);
-    	
-    	//Check Knight
-    	char col = targetKingPos.getColumn();
-    	int row = targetKingPos.getRow();
-		//Check RIGHT
-		col+=2;
-		Position knightPos = new Position(col, row+1);
-		if (isEnemyKnight(currentPlayer, knightPos)) {
-			attackerMap.add(knightPos);
-		}
-		knightPos = new Position(col, row-1);
-		if (isEnemyKnight(currentPlayer, knightPos)) {
-			attackerMap.add(knightPos);
-		}
-		//Check LEFT
-		col-=4;
-		knightPos = new Position(col, row+1);
-		if (isEnemyKnight(currentPlayer, knightPos)) {
-			attackerMap.add(knightPos);
-		}
-		knightPos = new Position(col, row-1);
-		if (isEnemyKnight(currentPlayer, knightPos)) {
-			attackerMap.add(knightPos);
-		}
-		//Check UP
-		col = targetKingPos.getColumn();
-		row = targetKingPos.getRow() + 2;
-		knightPos = new Position((char) (col+1), row);
-		if (isEnemyKnight(currentPlayer, knightPos)) {
-			attackerMap.add(knightPos);
-		}
-		knightPos = new Position((char) (col-1), row);
-		if (isEnemyKnight(currentPlayer, knightPos)) {
-			attackerMap.add(knightPos);
-		}
-		//Check DOWN
-		row -= 4;
-		knightPos = new Position((char) (col+1), row);
-		if (isEnemyKnight(currentPlayer, knightPos)) {
-			attackerMap.add(knightPos);
-		}
-		knightPos = new Position((char) (col-1), row);
-		if (isEnemyKnight(currentPlayer, knightPos)) {
-			attackerMap.add(knightPos);
-		}
-		
-		return attackerMap;
+    private int generateMoves(long pieces, long allowed, long pinned, MoveList moves) {
+    	int count = 0;
+    	while (pieces != 0) {
+    		int square = Long.numberOfTrailingZeros(pieces);
+    		pieces &= pieces - 1;
+    		long targets = ((pinned >>> square) & 1) != 0 ? allowed & pinRays[square] : allowed;
+    		count += board.getPieceAt(Position.of(square)).getMoveFinder().findMoves(this, square, targets, moves);
+    	}
+    	return count;
     }
     
     /**
-     * Checks if there is an enemy Knight at the position
-     * @param player
-     * @param p
-     * @return
+     * Checks if a player's king is attacked.  This allocates nothing, so it can be used on every node of a search.
+     * @param player The player whose king to look at
+     * @return true if the king is attacked; false if it is not, or if the player has no king on the board
+     */
+    public boolean isInCheck(Player player) {
+    	int kingSquare = kingSquare(player);
+    	return kingSquare >= 0 && isAttacked(kingSquare, player.opponent());
+    }
+
+    /**
+     * Reads the attack map of a player, which is kept up to date as pieces move
+     * @param position The square to look at
+     * @param attacker The player whose pieces may attack it
+     * @return true if any piece of the attacker attacks the square
+     */
+    public boolean isSquareAttacked(Position position, Player attacker) {
+    	return isAttacked(position.index(), attacker);
+    }
+
+    /**
+     * @param attacker The player whose pieces attack
+     * @return The mask of every square attacked by the player, bit n standing for square n
+     */
+    public long getAttackedSquares(Player attacker) {
+    	return attacked[attacker.ordinal()];
+    }
+
+    /**
+     * @param position The square to look at
+     * @return The mask of the pieces of either player that attack the square; mask it with
+     * {@link Board#getOccupied(Player)} for one player's
      */
-    private boolean isEnemyKnight(Player player, Position p) {
-    	if (p.isOnBoard()) {
-    		Piece knight = getPieceAt(p);
-    		return (knight != null && knight instanceof Knight && knight.getOwner() != player);
+    public long attackersOf(Position position) {
+    	long occupied = board.getOccupied();
+    	return attackers(position.index(), Player.White, occupied) | attackers(position.index(), Player.Black, occupied);
+    }
+
+    /**
+     * @return true if the current player has a king that is not attacked, but no legal move
+     */
+    public boolean isStalemate() {
+    	return kingSquare(currentPlayer) >= 0 && !isInCheck(currentPlayer) && !hasLegalMove();
+    }
+
+    /**
+     * @param player The player whose king to look for
+     * @return The square of the player's king, or -1 if it is not on the board
+     */
+    private int kingSquare(Player player) {
+    	Position kingPos = (player == Player.Black)? blackKingPos: whiteKingPos;
+    	if (kingPos == null || (board.getPieces(player, PieceType.King) & (1L << kingPos.index())) == 0) {
+    		return -1;
     	}
-    	return false;
+    	return kingPos.index();
+    }
+
+    private boolean isAttacked(int square, Player attacker) {
+    	return ((attacked[attacker.ordinal()] >>> square) & 1) != 0;
+    }
+
+    /**
+     * @param square The square to look at
+     * @param attacker The player whose pieces may attack it
+     * @param occupied The occupied squares sliding pieces are stopped by
+     * @return The mask of the attacker's pieces attacking the square
+     */
+    private long attackers(int square, Player attacker, long occupied) {
+    	long queens = board.getPieces(attacker, PieceType.Queen);
+    	return (Attacks.knight(square) & board.getPieces(attacker, PieceType.Knight))
+    			| (Attacks.pawn(attacker.opponent(), square) & board.getPieces(attacker, PieceType.Pawn))
+    			| (Attacks.king(square) & board.getPieces(attacker, PieceType.King))
+    			| (Attacks.rook(square, occupied) & (board.getPieces(attacker, PieceType.Rook) | queens))
+    			| (Attacks.bishop(square, occupied) & (board.getPieces(attacker, PieceType.Bishop) | queens));
     }
 
     /**
-     * This finds a path to attacker recursively and record the path to it
-     * @param attackerMap
-     * @param path
-     * @param d
-     * @param checkPos
-     * @param degree
-     */
-	private void findAttacker(Set<Position> attackerMap, List<Position> path, Direction d, Position checkPos, int degree) {
-		char col = checkPos.getColumn();
-		int row = checkPos.getRow();
-		
-		switch (d) {
-        	case UP_RIGHT:
-        		col++;
-        	case UP:
-        		row++;
-                break;
-        	case DOWN_RIGHT:
-        		row--;
-        	case RIGHT:
-        		col++;
-                break;
-        	case UP_LEFT:
-        		row++;
-        	case LEFT:
-        		col--;
-                break;
-        	case DOWN_LEFT:
-        		col--;
-        	case DOWN:
-        		row--;
-                break;
-			default:
-				break;
-		}
-
-		Position nextPosition = new Position(col, row);
-		if (nextPosition.isOnBoard()) {
-			Piece checkPiece = getPieceAt(nextPosition);
-			if (checkPiece == null) {  //Empty, keep going
-				path.add(nextPosition);
-				findAttacker(attackerMap, path, d, nextPosition, degree+1);
-			} else {
-				if (checkPiece.getOwner() != currentPlayer) {  
-					boolean enemyFound = false;
-					if (d == Direction.DOWN || d == Direction.UP || d == Direction.LEFT || d == Direction.RIGHT) {
-						if (checkPiece instanceof Queen || checkPiece instanceof Rook || (degree == 1 && checkPiece instanceof King)) {
-							enemyFound = true;
-						}
-					} else if (d == Direction.DOWN_LEFT || d == Direction.DOWN_RIGHT || d == Direction.UP_LEFT || d == Direction.UP_RIGHT) {
-						if (checkPiece instanceof Queen || checkPiece instanceof Bishop || (degree == 1 && checkPiece instanceof King)) {
-							enemyFound = true;
-						} else if (degree == 1 && checkPiece instanceof Pawn) { 
-							if (checkPiece.getOwner() == Player.White && (d == Direction.DOWN_LEFT || d == Direction.DOWN_RIGHT)) {
-								enemyFound = true;
-							} else if (checkPiece.getOwner() == Player.Black && (d == Direction.UP_LEFT || d == Direction.UP_RIGHT)) {
-								enemyFound = true;
-							}
-						}
-					}
-					
-					if (enemyFound) {
-						path.add(nextPosition);
-						attackerMap.addAll(path);
-					}
-				}
-			}
-		} 
-	}
+     * This is used to check if the current player in is checkmate.
+     * 
+     * Package visible for the benchmarks.
+     * 
+     * @return true if the current player loses due to checkmate
+     */
+    boolean isInCheckMate() {
+    	return isInCheck(currentPlayer) && !hasLegalMove();
+    }
+
+    /**
+     * @return true if the current player has any legal move; checkmate and stalemate both come down to this
+     */
+    private boolean hasLegalMove() {
+    	scratchMoves.clear();
+    	return generateMoves(scratchMoves) > 0;
+    }
 
     /**
      * Method to place a piece at a given position
      * @param piece The piece to place
      * @param position The position
      */
-    private void placePiece(Piece piece, Position position) {
+    protected void placePiece(Piece piece, Position position) {
     	if (piece instanceof King) {
     		if (piece.getOwner() == Player.Black) {
     			blackKingPos = position;
@@ -372,61 +776,121 @@ public class GameState {
     			whiteKingPos = position;
     		}
     	}
-        positionToPieceMap.put(position, piece);
+    	int square = position.index();
+    	Piece replaced = board.getPieceAt(position);
+    	if (replaced != null) {
+    		hashKey ^= Zobrist.piece(replaced.getOwner(), replaced.getType(), square);
+    		evaluation.remove(replaced, square);
+    		setAttacks(replaced.getOwner(), square, 0L);
+    	}
+        board.placePiece(piece, position);
+        hashKey ^= Zobrist.piece(piece.getOwner(), piece.getType(), square);
+        evaluation.add(piece, square);
+        if (replaced == null) {
+        	updateSlidersThrough(square);
+        }
+        setAttacks(piece.getOwner(), square, attacksOf(piece, square, board.getOccupied()));
     }
     
-    private void removeAtPosition(Position p) {
-    	positionToPieceMap.remove(p);
+    protected void removeAtPosition(Position p) {
+    	Piece removed = board.getPieceAt(p);
+    	if (removed != null) {
+    		hashKey ^= Zobrist.piece(removed.getOwner(), removed.getType(), p.index());
+    		evaluation.remove(removed, p.index());
+    		setAttacks(removed.getOwner(), p.index(), 0L);
+    		board.removePiece(p);
+    		updateSlidersThrough(p.index());
+    	}
     }
-    
+
     /**
-     * Returns all possible movement by player
-     * @param player
-     * @return
+     * Recomputes the attacks of the sliders whose lines reach a square that has just been filled or emptied
+     * @param square The square that changed
      */
-    private Map<Position, List<Position>> getPossibleMoves(Player player) {
-    	Map<Position, List<Position>> totalMoves = new HashMap<Position, List<Position>>();
-    	
-    	for (Map.Entry<Position, Piece> pair : positionToPieceMap.entrySet()) {
-    		Piece currentPiece = pair.getValue();
-    		if (currentPiece.getOwner() == player) {
-    			List<Position> possibleMoves = currentPiece.getMoveFinder().findMoves(this, pair.getKey()); 
-    			if (possibleMoves.size() > 0) {
-    				totalMoves.put(pair.getKey(), possibleMoves);
-    			}
-    		}
+    private void updateSlidersThrough(int square) {
+    	long occupied = board.getOccupied();
+    	long queens = board.getPieces(Player.White, PieceType.Queen) | board.getPieces(Player.Black, PieceType.Queen);
+    	long rooks = board.getPieces(Player.White, PieceType.Rook) | board.getPieces(Player.Black, PieceType.Rook);
+    	long bishops = board.getPieces(Player.White, PieceType.Bishop) | board.getPieces(Player.Black, PieceType.Bishop);
+    	long sliders = (Attacks.rook(square, occupied) & (rooks | queens))
+    			| (Attacks.bishop(square, occupied) & (bishops | queens));
+    	while (sliders != 0) {
+    		int slider = Long.numberOfTrailingZeros(sliders);
+    		sliders &= sliders - 1;
+    		Piece piece = board.getPieceAt(Position.of(slider));
+    		setAttacks(piece.getOwner(), slider, attacksOf(piece, slider, occupied));
     	}
-    	
-    	return totalMoves;
     }
 
     /**
-     * Checks to see if the current player is still in check even after make a movement to change the state of the board.
-     * @param kingPosition
-     * @param pieceToMove
-     * @param fromPosition
-     * @param toPosition
-     * @return
+     * Replaces the attacks of the piece on a square in the attack maps, counting only the squares that changed
+     * @param owner The owner of the piece
+     * @param square The square the piece stands on
+     * @param attacks The squares it attacks now; 0 when it leaves
      */
-    private boolean isInCheckAfterMove(Position kingPosition, Piece pieceToMove, Position fromPosition, Position toPosition) {
-    	boolean stillInCheck = false;
-    	//Could be an run and attack, save a reference
-    	Piece destinationPiece = getPieceAt(toPosition);
-    	//Move
-    	removeAtPosition(fromPosition);
-    	placePiece(pieceToMove, toPosition);
-    	
-    	stillInCheck = findAttackerMovement().size() > 0;
+    private void setAttacks(Player owner, int square, long attacks) {
+    	long old = attacksFrom[square];
+    	attacksFrom[square] = attacks;
+    	countAttacks(owner, old & ~attacks, -1);
+    	countAttacks(owner, attacks & ~old, 1);
+    }
+
+    private void countAttacks(Player owner, long squares, int delta) {
+    	int side = owner.ordinal();
+    	int base = side * Position.SQUARE_COUNT;
+    	while (squares != 0) {
+    		int square = Long.numberOfTrailingZeros(squares);
+    		squares &= squares - 1;
+    		int count = attackCounts[base + square] += delta;
+    		if (count == 0) {
+    			attacked[side] &= ~(1L << square);
+    		} else {
+    			attacked[side] |= 1L << square;
+    		}
+    	}
+    }
 
-    	//Reverse move
-    	placePiece(pieceToMove, fromPosition);
-    	if (destinationPiece != null) {  
-    		placePiece(destinationPiece, toPosition);
-    	} else {
-    		removeAtPosition(toPosition);
+    /**
+     * @param piece The piece
+     * @param square The square it stands on
+     * @param occupied The occupied squares sliding pieces are stopped by
+     * @return The squares the piece attacks
+     */
+    private static long attacksOf(Piece piece, int square, long occupied) {
+    	switch (piece.getType()) {
+    	case Pawn:
+    		return Attacks.pawn(piece.getOwner(), square);
+    	case Knight:
+    		return Attacks.knight(square);
+    	case Bishop:
+    		return Attacks.bishop(square, occupied);
+    	case Rook:
+    		return Attacks.rook(square, occupied);
+    	case Queen:
+    		return Attacks.queen(square, occupied);
+    	default:
+    		return Attacks.king(square);
     	}
-    	
-    	return stillInCheck;
+    }
+
+    /**
+     * Removes every piece from the board
+     */
+    protected void clearBoard() {
+    	board.clear();
+    	hashKey = (currentPlayer == Player.Black) ? Zobrist.side() : 0L;
+    	Arrays.fill(attacksFrom, 0L);
+    	Arrays.fill(attackCounts, 0);
+    	Arrays.fill(attacked, 0L);
+    	evaluation.clear();
+    }
+
+    /**
+     * Hands the move to the other player
+     */
+    private void switchPlayer() {
+    	currentPlayer = currentPlayer.opponent();
+    	hashKey ^= Zobrist.side();
     }
 
 }
@@ -4,6 +4,12 @@ package chess;
  * Which side of the board is being played
  */
 public enum Player {
-    White, Black
+    White, Black;
 
+    /**
+     * @return The player on the other side of the board
+     */
+    public Player opponent() {
+        return this == White ? Black : White;
+    }
 }
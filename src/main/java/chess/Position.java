@@ -8,8 +8,21 @@ public class Position {
     public static final int MAX_ROW = 8;
     public static final char MIN_COLUMN = 'a';
     public static final char MAX_COLUMN = 'h';
-    private int row;
-    private char column;
+    public static final int SQUARE_COUNT = 64;
+
+    /**
+     * The canonical instance for each square, indexed by {@link #index()}
+     */
+    private static final Position[] SQUARES = new Position[SQUARE_COUNT];
+    static {
+        for (int square = 0; square < SQUARE_COUNT; square++) {
+            SQUARES[square] = new Position((char) (MIN_COLUMN + (square & 7)), MIN_ROW + (square >>> 3));
+        }
+    }
+
+    private final int row;
+    private final char column;
+    private final int index;
 
     /**
      * Create a new position object
@@ -20,6 +33,7 @@ public class Position {
     public Position(char column, int row) {
         this.row = row;
         this.column = column;
+        this.index = isOnBoard(column, row) ? (row - MIN_ROW) * 8 + (column - MIN_COLUMN) : -1;
     }
 
     /**
@@ -30,6 +44,47 @@ public class Position {
         this(colrow.toCharArray()[0], Character.digit(colrow.toCharArray()[1], 10));
     }
 
+    /**
+     * Get the shared position object for a square
+     * @param column The column
+     * @param row The row
+     * @return The position, or null if the square is not on the board
+     */
+    public static Position of(char column, int row) {
+        if (!isOnBoard(column, row)) {
+            return null;
+        }
+        return SQUARES[(row - MIN_ROW) * 8 + (column - MIN_COLUMN)];
+    }
+
+    /**
+     * Get the shared position object for a square
+     * @param square The square index, 0 (a1) to 63 (h8)
+     * @return The position
+     */
+    public static Position of(int square) {
+        return SQUARES[square];
+    }
+
+    /**
+     * Get the shared position object by parsing the string
+     * @param colrow The column and row to use.  I.e. "a1", "h7", etc.
+     * @return The position, or null if the string does not name a square on the board
+     */
+    public static Position of(String colrow) {
+        if (colrow.length() != 2) {
+            return null;
+        }
+        return of(colrow.charAt(0), Character.digit(colrow.charAt(1), 10));
+    }
+
+    /**
+     * @return The square index, 0 (a1) to 63 (h8) row by row, or -1 if the position is not on the board
+     */
+    public int index() {
+        return index;
+    }
+
     public int getRow() {
         return row;
     }
@@ -3,9 +3,23 @@ package chess.app;
 import chess.GameState;
 import chess.Player;
 import chess.Position;
+import chess.book.OpeningBook;
+import chess.engine.Search;
+import chess.engine.SearchLimits;
+import chess.engine.SearchListener;
+import chess.engine.SearchResult;
+import chess.engine.TranspositionTable;
+import chess.perft.Perft;
 import chess.pieces.Piece;
+import chess.pieces.PieceType;
+import chess.pieces.move.Move;
+import chess.pieces.move.MoveList;
+import chess.record.GameRecordWriter;
+import chess.tablebase.Tablebase;
+import chess.tablebase.TablebaseGenerator;
 
 import java.io.*;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Pattern;
@@ -19,8 +33,30 @@ public class CLI {
     private final BufferedReader inReader;
     private final PrintStream outStream;
 
+    private static final int TABLE_MEGABYTES = 16;
+
     private GameState gameState = null;
 
+    /**
+     * Search results, kept from one 'go' to the next; created on first use
+     */
+    private TranspositionTable table = null;
+
+    /**
+     * The number of threads 'go' searches with
+     */
+    private int searchThreads = 1;
+
+    /**
+     * The opening book 'go' plays from, or null
+     */
+    private OpeningBook book = null;
+
+    /**
+     * The endgame tables 'go' scores positions from, or null
+     */
+    private Tablebase tablebase = null;
+
     public CLI(InputStream inputStream, PrintStream outStream) {
         this.inReader = new BufferedReader(new InputStreamReader(inputStream));
         this.outStream = outStream;
@@ -93,16 +129,30 @@ public class CLI {
                 				!Pattern.matches("[a-h][1-8]", splits[1]) && Pattern.matches("[a-h][1-8]", splits[2])) {
                 			writeOutput("Invalid command. Command format is 'move b2 b3'.");
                 		} else {
-                			if (!gameState.movePiece(splits[1], splits[2])) {
-                				writeOutput("Illegal move!");
-                			} else {
-                				if (gameState.isOver()) {
-                					writeOutput("The game is over. Congrats to "+((gameState.getCurrentPlayer() == Player.Black)? Player.White: Player.Black)+".");
-                					showBoard();
-                				}
-                			}
+                			doMove(splits[1], splits[2]);
                 		}
                 	}
+                } else if (input.equals("showfen")) {
+                    writeOutput(gameState.toFen());
+                } else if (input.startsWith("fen")) {
+                    doFen(input);
+                } else if (input.startsWith("tablebase")) {
+                    doTablebase(input);
+                } else if (input.startsWith("book")) {
+                    doBook(input);
+                } else if (input.startsWith("save")) {
+                    doSave(input);
+                } else if (input.startsWith("perft")) {
+                    doPerft(input);
+                } else if (input.startsWith("setoption")) {
+                    doSetOption(input);
+                } else if (input.startsWith("go")) {
+                	if (gameState.isOver()) {
+                		showBoard();
+                		writeOutput("The game was over.");
+                	} else {
+                		doGo(input);
+                	}
                 } else {
                     writeOutput("I didn't understand that.  Type 'help' for a list of commands.");
                 }
@@ -115,6 +165,221 @@ public class CLI {
         gameState.reset();
     }
 
+    /**
+     * Set up a position, keeping the current game if it is not valid
+     * @param input The command, i.e. "fen 4k3/8/8/8/8/8/4P3/4K3 w - - 0 1"
+     */
+    private void doFen(String input) {
+        String fen = input.substring("fen".length()).trim();
+        if (fen.length() == 0) {
+            writeOutput("Invalid command. Command format is 'fen <position>'.");
+            return;
+        }
+        try {
+            gameState = GameState.fromFen(fen);
+        } catch (IllegalArgumentException e) {
+            writeOutput(e.getMessage());
+            return;
+        }
+        if (gameState.isOver()) {
+            showBoard();
+            writeOutput("The game is over.");
+        }
+    }
+
+    /**
+     * Open an opening book, close it, or list its moves for the current position
+     * @param input The command, i.e. "book openings.cbk", "book off" or "book"
+     */
+    private void doBook(String input) {
+        String argument = input.substring("book".length()).trim();
+        if (argument.length() == 0) {
+            if (book == null) {
+                writeOutput("No opening book is open.");
+                return;
+            }
+            MoveList moves = new MoveList();
+            int[] weights = new int[MoveList.DEFAULT_CAPACITY];
+            int count = book.getMoves(gameState, moves, weights);
+            if (count == 0) {
+                writeOutput("The position is not in the book.");
+            }
+            for (int i = 0; i < count; i++) {
+                writeOutput(Move.toString(moves.get(i)) + " weight " + weights[i]);
+            }
+            return;
+        }
+        closeBook();
+        if (argument.equals("off")) {
+            writeOutput("Opening book closed.");
+            return;
+        }
+        try {
+            book = new OpeningBook(Paths.get(argument));
+            writeOutput("Opened " + argument + " with " + book.size() + " entries.");
+        } catch (IOException e) {
+            writeOutput("Could not open the book: " + e.getMessage());
+        }
+    }
+
+    private void closeBook() {
+        if (book != null) {
+            try {
+                book.close();
+            } catch (IOException e) {
+                // Nothing was written, so nothing is lost
+            }
+            book = null;
+        }
+    }
+
+    /**
+     * Open the endgame tables in a directory, or look up the current position in them
+     * @param input The command, i.e. "tablebase tables" or "tablebase"
+     */
+    private void doTablebase(String input) {
+        String directory = input.substring("tablebase".length()).trim();
+        if (directory.length() == 0) {
+            if (tablebase == null) {
+                writeOutput("No tablebase is open.");
+            } else {
+                writeOutput(gameState.getCurrentPlayer() + " " + Tablebase.toString(tablebase.probe(gameState)) + ".");
+            }
+            return;
+        }
+        try {
+            Tablebase opened = new Tablebase(Paths.get(directory));
+            if (tablebase != null) {
+                tablebase.close();
+            }
+            tablebase = opened;
+            StringBuilder endings = new StringBuilder();
+            for (PieceType type : TablebaseGenerator.PIECES) {
+                if (tablebase.has(type)) {
+                    endings.append(' ').append(Tablebase.fileName(type));
+                }
+            }
+            writeOutput("Opened the tables in " + directory + ":" + (endings.length() == 0 ? " none" : endings) + ".");
+        } catch (IOException e) {
+            writeOutput("Could not open the tables: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Append the current game to a game record file
+     * @param input The command, i.e. "save games.cgr"
+     */
+    private void doSave(String input) {
+        String file = input.substring("save".length()).trim();
+        if (file.length() == 0) {
+            writeOutput("Invalid command. Command format is 'save <file>'.");
+            return;
+        }
+        try {
+            GameRecordWriter writer = new GameRecordWriter(Paths.get(file));
+            try {
+                writer.write(gameState);
+            } finally {
+                writer.close();
+            }
+            writeOutput("Saved " + gameState.getMoveCount() + " moves to " + file + ".");
+        } catch (IOException e) {
+            writeOutput("Could not save the game: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Make a move for the current player, and announce the end of the game if it ends it
+     * @param from The origin, i.e. "e2"
+     * @param to The destination, i.e. "e4"
+     */
+    private void doMove(String from, String to) {
+        if (!gameState.movePiece(from, to)) {
+            writeOutput("Illegal move!");
+        } else if (gameState.isOver() && gameState.isStalemate()) {
+            writeOutput("The game is over. It is a draw by stalemate.");
+            showBoard();
+        } else if (gameState.isOver()) {
+            writeOutput("The game is over. Congrats to "+((gameState.getCurrentPlayer() == Player.Black)? Player.White: Player.Black)+".");
+            showBoard();
+        }
+    }
+
+    /**
+     * Let the engine search the current position and play the best move it finds
+     * @param input The command, i.e. "go depth 6" or "go movetime 2000"
+     */
+    private void doGo(String input) {
+        String[] splits = input.split(" ");
+        if (splits.length != 3 || !Pattern.matches("depth|movetime", splits[1]) || !Pattern.matches("[1-9][0-9]{0,8}", splits[2])) {
+            writeOutput("Invalid command. Command format is 'go depth 6' or 'go movetime 2000'.");
+            return;
+        }
+        int amount = Integer.parseInt(splits[2]);
+        SearchLimits limits = splits[1].equals("depth") ? SearchLimits.depth(amount) : SearchLimits.moveTime(amount);
+        if (table == null) {
+            table = new TranspositionTable(TABLE_MEGABYTES);
+        }
+        Search search = new Search(gameState, table);
+        search.setThreads(searchThreads);
+        search.setBook(book);
+        search.setTablebase(tablebase);
+        search.setListener(new SearchListener() {
+            @Override
+            public void iterationComplete(SearchResult result) {
+                writeOutput(String.format("depth %d score %s nodes %d nps %d time %d pv %s", result.getDepth(),
+                        result.getScoreString(), result.getNodes(), result.getNodesPerSecond(), result.getMillis(),
+                        result.getPrincipalVariationString()));
+            }
+        });
+        SearchResult result = search.search(limits);
+        int move = result.getBestMove();
+        if (move == Move.NONE) {
+            writeOutput("No possible moves.");
+            return;
+        }
+        writeOutput("Best move: " + Move.toString(move) + (result.getDepth() == 0 ? " (book)" : ""));
+        doMove(Position.of(Move.from(move)).toString(), Position.of(Move.to(move)).toString());
+    }
+
+    /**
+     * Change a setting of the engine
+     * @param input The command, i.e. "setoption threads 4"
+     */
+    private void doSetOption(String input) {
+        String[] splits = input.split(" ");
+        if (splits.length != 3 || !splits[1].equals("threads") || !Pattern.matches("[1-9][0-9]{0,2}", splits[2])) {
+            writeOutput("Invalid command. Command format is 'setoption threads 4'.");
+            return;
+        }
+        searchThreads = Integer.parseInt(splits[2]);
+        writeOutput("Searching with " + searchThreads + " threads.");
+    }
+
+    /**
+     * Count the legal move tree of the current position, broken down by first move
+     * @param input The command, i.e. "perft 4"
+     */
+    private void doPerft(String input) {
+        String[] splits = input.split(" ");
+        if (splits.length != 2 || !Pattern.matches("[1-9][0-9]?", splits[1])) {
+            writeOutput("Invalid command. Command format is 'perft 4'.");
+            return;
+        }
+        int depth = Integer.parseInt(splits[1]);
+        long start = System.nanoTime();
+        Map<String, Long> divide = new Perft(gameState).divide(depth);
+        long nanos = System.nanoTime() - start;
+
+        long nodes = 0;
+        for (Map.Entry<String, Long> pair : divide.entrySet()) {
+            writeOutput(pair.getKey() + ": " + pair.getValue());
+            nodes += pair.getValue();
+        }
+        writeOutput("Nodes: " + nodes);
+        writeOutput(String.format("Time: %.1f ms (%d nodes/s)", nanos / 1e6, nanos == 0 ? 0 : (long) (nodes * 1e9 / nanos)));
+    }
+
     private void showBoard() {
         writeOutput(getBoardAsString());
     }
@@ -127,19 +392,35 @@ public class CLI {
         writeOutput("    'board'                      Show the chess board");
         writeOutput("    'list'                       List all possible moves");
         writeOutput("    'move <colrow> <colrow>'     Make a move");
+        writeOutput("    'fen <position>'             Set up a position given in FEN");
+        writeOutput("    'showfen'                    Show the position in FEN");
+        writeOutput("    'book [<file>|off]'          Open or close an opening book, or list its moves");
+        writeOutput("    'tablebase [<dir>]'          Open endgame tables, or look up the position");
+        writeOutput("    'save <file>'                Append the game to a game record file");
+        writeOutput("    'perft <depth>'              Count the moves to a depth, per first move");
+        writeOutput("    'go depth|movetime <n>'      Let the computer move, searching n plies or n ms");
+        writeOutput("    'setoption threads <n>'      Let the computer search with n threads");
     }
 
     /**
      * Display the board for the user(s)
      */
     String getBoardAsString() {
+        return getBoardAsString(gameState);
+    }
+
+    /**
+     * @param gameState The game to display
+     * @return The board as 'board' shows it
+     */
+    static String getBoardAsString(GameState gameState) {
         StringBuilder builder = new StringBuilder();
         builder.append(NEWLINE);
 
         printColumnLabels(builder);
         for (int i = Position.MAX_ROW; i >= Position.MIN_ROW; i--) {
             printSeparator(builder);
-            printSquares(i, builder);
+            printSquares(gameState, i, builder);
         }
 
         printSeparator(builder);
@@ -149,22 +430,22 @@ public class CLI {
     }
 
 
-    private void printSquares(int rowLabel, StringBuilder builder) {
+    private static void printSquares(GameState gameState, int rowLabel, StringBuilder builder) {
         builder.append(rowLabel);
 
         for (char c = Position.MIN_COLUMN; c <= Position.MAX_COLUMN; c++) {
-            Piece piece = gameState.getPieceAt(String.valueOf(c) + rowLabel);
+            Piece piece = gameState.getPieceAt(Position.of(c, rowLabel));
             char pieceChar = piece == null ? ' ' : piece.getIdentifier();
             builder.append(" | ").append(pieceChar);
         }
         builder.append(" | ").append(rowLabel).append(NEWLINE);
     }
 
-    private void printSeparator(StringBuilder builder) {
+    private static void printSeparator(StringBuilder builder) {
         builder.append("  +---+---+---+---+---+---+---+---+").append(NEWLINE);
     }
 
-    private void printColumnLabels(StringBuilder builder) {
+    private static void printColumnLabels(StringBuilder builder) {
         builder.append("   ");
         for (char c = Position.MIN_COLUMN; c <= Position.MAX_COLUMN; c++) {
             builder.append(" ").append(c).append("  ");
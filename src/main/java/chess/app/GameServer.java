@@ -0,0 +1,261 @@
+package chess.app;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import chess.GameState;
+import chess.Player;
+import chess.pieces.move.Move;
+import chess.pieces.move.MoveList;
+
+/**
+ * Hosts many games at once over TCP on the loopback interface, speaking the commands of the {@link CLI} that play a
+ * game: 'new', 'move', 'list' and 'board', plus 'join &lt;id&gt;' to play a game another connection started, and
+ * 'quit'.
+ * <p>
+ * Every command is answered by its output lines, if any, then a last line starting with "ok" or "error".  'new'
+ * answers "ok &lt;id&gt;".
+ * <p>
+ * Each connection is served by its own thread, blocking on its socket: a virtual thread when the runtime has them,
+ * otherwise a pooled platform thread.  Games live in a {@link SessionRegistry}.
+ */
+public class GameServer implements Closeable {
+	public static final int DEFAULT_PORT = 7777;
+
+	private static final Pattern SQUARE = Pattern.compile("[a-h][1-8]");
+	private static final String NEWLINE = "\n";
+
+	private final ServerSocket serverSocket;
+	private final SessionRegistry sessions;
+	private final ExecutorService connections = newConnectionExecutor();
+	private final Set<Socket> sockets = Collections.newSetFromMap(new ConcurrentHashMap<Socket, Boolean>());
+	private final Thread acceptor;
+
+	/**
+	 * Starts listening
+	 * @param port The port on the loopback interface, or 0 for any free one
+	 * @param shards The number of shards of the session registry
+	 * @throws IOException If the port cannot be bound
+	 */
+	public GameServer(int port, int shards) throws IOException {
+		serverSocket = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+		sessions = new SessionRegistry(shards);
+		acceptor = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				accept();
+			}
+		}, "GameServer acceptor");
+		acceptor.start();
+	}
+
+	/**
+	 * @return A virtual thread per task executor on Java 21 and later, a cached thread pool before
+	 */
+	static ExecutorService newConnectionExecutor() {
+		try {
+			Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) method.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool();
+		}
+	}
+
+	/**
+	 * @return The port listened on
+	 */
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * @return The number of games held
+	 */
+	public int getSessionCount() {
+		return sessions.size();
+	}
+
+	/**
+	 * @return The number of open connections
+	 */
+	public int getConnectionCount() {
+		return sockets.size();
+	}
+
+	private void accept() {
+		while (!serverSocket.isClosed()) {
+			final Socket socket;
+			try {
+				socket = serverSocket.accept();
+			} catch (IOException e) {
+				break; // Closed
+			}
+			sockets.add(socket);
+			try {
+				connections.execute(new Runnable() {
+					@Override
+					public void run() {
+						serve(socket);
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				// Accepted while closing
+				sockets.remove(socket);
+				closeQuietly(socket);
+			}
+		}
+	}
+
+	private void serve(Socket socket) {
+		SessionRegistry.Session session = null;
+		try {
+			socket.setTcpNoDelay(true);
+			BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+			Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+			MoveList moves = new MoveList();
+			String input;
+			while ((input = in.readLine()) != null) {
+				input = input.trim();
+				if (input.equals("quit")) {
+					out.write("ok" + NEWLINE);
+					out.flush();
+					break;
+				} else if (input.equals("new")) {
+					if (session != null) {
+						sessions.release(session);
+					}
+					session = sessions.create();
+					out.write("ok " + session.getId() + NEWLINE);
+				} else if (input.startsWith("join")) {
+					SessionRegistry.Session joined = join(input);
+					if (joined == null) {
+						out.write("error No such game." + NEWLINE);
+					} else {
+						if (session != null) {
+							sessions.release(session);
+						}
+						session = joined;
+						out.write("ok " + session.getId() + NEWLINE);
+					}
+				} else if (session == null) {
+					out.write("error No game. Start one with 'new' or 'join <id>'." + NEWLINE);
+				} else {
+					synchronized (session) {
+						execute(session.getState(), input, moves, out);
+					}
+				}
+				out.flush();
+			}
+		} catch (SocketException e) {
+			// The client went away or the server is closing
+		} catch (IOException e) {
+			// As above, seen as a failed read or write
+		} finally {
+			if (session != null) {
+				sessions.release(session);
+			}
+			sockets.remove(socket);
+			closeQuietly(socket);
+		}
+	}
+
+	private static void closeQuietly(Socket socket) {
+		try {
+			socket.close();
+		} catch (IOException e) {
+			// Nothing more to send
+		}
+	}
+
+	private SessionRegistry.Session join(String input) {
+		String id = input.substring("join".length()).trim();
+		if (!Pattern.matches("[1-9][0-9]{0,17}", id)) {
+			return null;
+		}
+		return sessions.join(Long.parseLong(id));
+	}
+
+	/**
+	 * Runs one of the commands on a game
+	 */
+	private static void execute(GameState gameState, String input, MoveList moves, Writer out) throws IOException {
+		if (input.equals("board")) {
+			out.write(CLI.getBoardAsString(gameState));
+			out.write((gameState.isOver() ? "ok The game is over." : "ok " + gameState.getCurrentPlayer() + "'s Move") + NEWLINE);
+		} else if (input.equals("list")) {
+			moves.clear();
+			int count = gameState.isOver() ? 0 : gameState.generateMoves(moves);
+			for (int i = 0; i < count; i++) {
+				out.write(Move.toString(moves.get(i)) + NEWLINE);
+			}
+			out.write("ok " + count + NEWLINE);
+		} else if (input.startsWith("move")) {
+			String[] splits = input.split(" ");
+			if (splits.length != 3 || !SQUARE.matcher(splits[1]).matches() || !SQUARE.matcher(splits[2]).matches()) {
+				out.write("error Invalid command. Command format is 'move b2 b3'." + NEWLINE);
+			} else if (gameState.isOver()) {
+				out.write("error The game was over." + NEWLINE);
+			} else if (!gameState.movePiece(splits[1], splits[2])) {
+				out.write("error Illegal move!" + NEWLINE);
+			} else if (gameState.isOver() && gameState.isStalemate()) {
+				out.write("ok The game is over. It is a draw by stalemate." + NEWLINE);
+			} else if (gameState.isOver()) {
+				Player winner = gameState.getCurrentPlayer() == Player.Black ? Player.White : Player.Black;
+				out.write("ok The game is over. Congrats to " + winner + "." + NEWLINE);
+			} else {
+				out.write("ok" + NEWLINE);
+			}
+		} else {
+			out.write("error I didn't understand that." + NEWLINE);
+		}
+	}
+
+	/**
+	 * Stops listening and drops every connection
+	 */
+	@Override
+	public void close() throws IOException {
+		serverSocket.close();
+		try {
+			acceptor.join();
+			for (Socket socket : sockets) {
+				closeQuietly(socket);
+			}
+			connections.shutdown();
+			connections.awaitTermination(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Serves until killed
+	 * @param args Optionally the port (default {@value #DEFAULT_PORT}) and the number of registry shards (default 64)
+	 * @throws IOException If the port cannot be bound
+	 */
+	public static void main(String[] args) throws IOException {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+		int shards = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+		GameServer server = new GameServer(port, shards);
+		System.out.println("Serving games on " + server.serverSocket.getLocalSocketAddress());
+	}
+}
@@ -0,0 +1,230 @@
+package chess.app;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Plays random games against a {@link GameServer} from many connections at once, and measures how long each move
+ * takes to be answered.  Every connection holds one game: it lists the legal moves, plays one at random, and starts
+ * a new game when the game is over.
+ */
+public class LoadGenerator {
+	/**
+	 * What a run measured
+	 */
+	public static final class Result {
+		private final int sessions;
+		private final long[] latencies;
+		private final long nanos;
+
+		private Result(int sessions, long[] latencies, long nanos) {
+			this.sessions = sessions;
+			this.latencies = latencies;
+			this.nanos = nanos;
+			Arrays.sort(latencies);
+		}
+
+		/**
+		 * @return The number of games held at once
+		 */
+		public int getSessions() {
+			return sessions;
+		}
+
+		/**
+		 * @return The number of moves played
+		 */
+		public long getMoves() {
+			return latencies.length;
+		}
+
+		public double getMovesPerSecond() {
+			return nanos == 0 ? 0.0 : latencies.length * 1e9 / nanos;
+		}
+
+		/**
+		 * @param percentile Between 0 and 100
+		 * @return The time in nanoseconds that that share of the moves were answered within
+		 */
+		public long getLatency(double percentile) {
+			if (latencies.length == 0) {
+				return 0L;
+			}
+			int index = (int) Math.ceil(percentile / 100.0 * latencies.length) - 1;
+			return latencies[Math.max(0, Math.min(latencies.length - 1, index))];
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d sessions, %d moves, %.0f moves/s, p50 %.1f us, p99 %.1f us", sessions,
+					getMoves(), getMovesPerSecond(), getLatency(50) / 1e3, getLatency(99) / 1e3);
+		}
+	}
+
+	private final int port;
+	private final int clients;
+
+	/**
+	 * @param port The port of the server on the loopback interface
+	 * @param clients The number of connections, each playing one game at a time
+	 */
+	public LoadGenerator(int port, int clients) {
+		this.port = port;
+		this.clients = clients;
+	}
+
+	/**
+	 * Connects every client and starts its game, then lets them all play
+	 * @param millis How long to play for, once every client is connected
+	 * @return The measurements
+	 * @throws IOException If a client fails
+	 */
+	public Result run(final long millis) throws IOException {
+		final CountDownLatch connected = new CountDownLatch(clients);
+		final CountDownLatch start = new CountDownLatch(1);
+		final long[] window = new long[2];
+		ExecutorService executor = GameServer.newConnectionExecutor();
+		List<Future<long[]>> results = new ArrayList<Future<long[]>>(clients);
+		try {
+			for (int i = 0; i < clients; i++) {
+				final int seed = i;
+				results.add(executor.submit(new Callable<long[]>() {
+					@Override
+					public long[] call() throws Exception {
+						return play(seed, connected, start, window);
+					}
+				}));
+			}
+			connected.await();
+			window[0] = System.nanoTime();
+			window[1] = window[0] + millis * 1000000L;
+			start.countDown();
+
+			long[] latencies = new long[0];
+			for (Future<long[]> result : results) {
+				long[] client = result.get();
+				int length = latencies.length;
+				latencies = Arrays.copyOf(latencies, length + client.length);
+				System.arraycopy(client, 0, latencies, length, client.length);
+			}
+			return new Result(clients, latencies, System.nanoTime() - window[0]);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IOException("A client failed", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * @return The time each move took, in nanoseconds
+	 */
+	private long[] play(int seed, CountDownLatch connected, CountDownLatch start, long[] window)
+			throws IOException, InterruptedException {
+		Random random = new Random(seed);
+		long[] latencies = new long[1024];
+		int moves = 0;
+		Socket socket;
+		try {
+			socket = new Socket(InetAddress.getLoopbackAddress(), port);
+		} catch (IOException e) {
+			connected.countDown();
+			throw e;
+		}
+		try {
+			socket.setTcpNoDelay(true);
+			BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+			Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+			List<String> legal = new ArrayList<String>();
+			try {
+				request(in, out, "new", null);
+			} finally {
+				connected.countDown();
+			}
+			start.await();
+			while (System.nanoTime() < window[1]) {
+				legal.clear();
+				request(in, out, "list", legal);
+				if (legal.isEmpty()) {
+					request(in, out, "new", null);
+					continue;
+				}
+				String move = "move " + legal.get(random.nextInt(legal.size()));
+				long begin = System.nanoTime();
+				String answer = request(in, out, move, null);
+				if (moves == latencies.length) {
+					latencies = Arrays.copyOf(latencies, moves * 2);
+				}
+				latencies[moves++] = System.nanoTime() - begin;
+				if (answer.contains("over")) {
+					request(in, out, "new", null);
+				}
+			}
+			request(in, out, "quit", null);
+		} finally {
+			socket.close();
+		}
+		return Arrays.copyOf(latencies, moves);
+	}
+
+	/**
+	 * Sends a command and reads its answer
+	 * @param lines Receives the output lines before the last, or null to skip them
+	 * @return The last line
+	 * @throws IOException If the connection fails or the command is refused
+	 */
+	private static String request(BufferedReader in, Writer out, String command, List<String> lines)
+			throws IOException {
+		out.write(command + "\n");
+		out.flush();
+		String line;
+		while ((line = in.readLine()) != null) {
+			if (line.startsWith("ok")) {
+				return line;
+			} else if (line.startsWith("error")) {
+				throw new IOException("'" + command + "' failed: " + line);
+			} else if (lines != null) {
+				lines.add(line);
+			}
+		}
+		throw new IOException("The server closed the connection");
+	}
+
+	/**
+	 * Runs a load test and prints what it measured
+	 * @param args The number of clients (default 1000), the seconds to play (default 10), then optionally the port of a
+	 * running server; without one a server is started in this process
+	 * @throws IOException If the server cannot be started or a client fails
+	 */
+	public static void main(String[] args) throws IOException {
+		int clients = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		GameServer server = args.length > 2 ? null : new GameServer(0, 64);
+		try {
+			int port = server == null ? Integer.parseInt(args[2]) : server.getPort();
+			System.out.println(new LoadGenerator(port, clients).run(seconds * 1000L));
+		} finally {
+			if (server != null) {
+				server.close();
+			}
+		}
+	}
+}
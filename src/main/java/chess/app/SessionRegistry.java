@@ -0,0 +1,126 @@
+package chess.app;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import chess.GameState;
+
+/**
+ * The games a {@link GameServer} hosts, by id.  Ids are spread over shards, each a map with its own lock, so
+ * connections opening and joining games seldom wait for each other.  A game is dropped when the last connection
+ * playing it lets go of it.
+ * <p>
+ * Thread safe; the {@link GameState} of a session is guarded by the session itself.
+ */
+class SessionRegistry {
+	/**
+	 * One hosted game
+	 */
+	static final class Session {
+		private final long id;
+		private final GameState state = new GameState();
+		private int connections;
+
+		private Session(long id) {
+			this.id = id;
+			state.reset();
+		}
+
+		long getId() {
+			return id;
+		}
+
+		/**
+		 * @return The game; hold the session's lock while using it
+		 */
+		GameState getState() {
+			return state;
+		}
+	}
+
+	private final Object[] locks;
+	private final Map<Long, Session>[] shards;
+	private final AtomicLong nextId = new AtomicLong(1);
+
+	/**
+	 * @param shardCount The number of shards, rounded up to a power of two
+	 */
+	SessionRegistry(int shardCount) {
+		int count = Integer.highestOneBit(Math.max(1, shardCount) * 2 - 1);
+		locks = new Object[count];
+		// There is no generic array creation
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		Map<Long, Session>[] maps = new Map[count];
+		shards = maps;
+		for (int i = 0; i < count; i++) {
+			locks[i] = new Object();
+			shards[i] = new HashMap<Long, Session>();
+		}
+	}
+
+	/**
+	 * Starts a game at the initial position, held by the calling connection
+	 * @return The new session
+	 */
+	Session create() {
+		Session session = new Session(nextId.getAndIncrement());
+		session.connections = 1;
+		int shard = shard(session.id);
+		synchronized (locks[shard]) {
+			shards[shard].put(session.id, session);
+		}
+		return session;
+	}
+
+	/**
+	 * Lets the calling connection play a game too
+	 * @param id The id of the game
+	 * @return The session, or null if there is no such game
+	 */
+	Session join(long id) {
+		int shard = shard(id);
+		synchronized (locks[shard]) {
+			Session session = shards[shard].get(id);
+			if (session != null) {
+				session.connections++;
+			}
+			return session;
+		}
+	}
+
+	/**
+	 * Lets go of a game the calling connection created or joined, dropping it if no connection holds it any more
+	 * @param session The session
+	 */
+	void release(Session session) {
+		int shard = shard(session.id);
+		synchronized (locks[shard]) {
+			if (--session.connections == 0) {
+				shards[shard].remove(session.id);
+			}
+		}
+	}
+
+	/**
+	 * @return The number of games held
+	 */
+	int size() {
+		int size = 0;
+		for (int i = 0; i < shards.length; i++) {
+			synchronized (locks[i]) {
+				size += shards[i].size();
+			}
+		}
+		return size;
+	}
+
+	int getShardCount() {
+		return shards.length;
+	}
+
+	private int shard(long id) {
+		// Consecutive ids land on consecutive shards
+		return (int) id & (shards.length - 1);
+	}
+}
@@ -0,0 +1,323 @@
+package chess.app;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.util.regex.Pattern;
+
+import chess.GameState;
+import chess.Player;
+import chess.Position;
+import chess.engine.Search;
+import chess.engine.SearchLimits;
+import chess.engine.SearchListener;
+import chess.engine.SearchResult;
+import chess.engine.TranspositionTable;
+import chess.pieces.move.Move;
+
+/**
+ * Lets GUIs and tournament managers play the engine through the Universal Chess Interface: 'uci', 'isready',
+ * 'ucinewgame', 'setoption', 'position', 'go', 'stop' and 'quit'.
+ * <p>
+ * A 'position' command is applied against the current game rather than set up from scratch: when it has the same
+ * start, the moves it shares with the game are kept, and only the rest are taken back or played.  A GUI resends the
+ * whole game before every move, so normally just the last one or two moves are played.
+ * <p>
+ * 'go' searches on a thread of its own, so 'stop' and 'isready' are answered while it runs.  The game has no
+ * promotion, so a promotion letter after a move is ignored.
+ */
+public class Uci {
+	private static final String NAME = "Chess";
+	private static final int DEFAULT_HASH_MEGABYTES = 16;
+	private static final int MAX_THREADS = 64;
+	private static final int MAX_HASH_MEGABYTES = 4096;
+	private static final Pattern MOVE = Pattern.compile("[a-h][1-8][a-h][1-8][nbrq]?");
+	private static final Pattern NUMBER = Pattern.compile("[0-9]{1,12}");
+
+	/**
+	 * When only the remaining time is known, a move gets this share of it
+	 */
+	private static final int MOVES_TO_GO = 30;
+	private static final long TIME_RESERVE_MILLIS = 50L;
+
+	private final BufferedReader in;
+	private final PrintStream out;
+
+	private final GameState gameState = new GameState();
+
+	/**
+	 * The start of the current game: "startpos", or the FEN it was set up from
+	 */
+	private String start = "startpos";
+	private long movesPlayed;
+
+	private TranspositionTable table = new TranspositionTable(DEFAULT_HASH_MEGABYTES);
+	private int threads = 1;
+
+	private Search search;
+	private Thread searchThread;
+	private boolean unlimited;
+
+	public Uci(InputStream in, PrintStream out) {
+		this.in = new BufferedReader(new InputStreamReader(in));
+		this.out = out;
+		gameState.reset();
+	}
+
+	/**
+	 * Answers commands until 'quit' or the end of the input.  At the end of the input a running search is let
+	 * finish, unless it has no limit.
+	 */
+	public void run() {
+		try {
+			String input;
+			while ((input = in.readLine()) != null) {
+				input = input.trim();
+				if (!execute(input)) {
+					stopSearch();
+					return;
+				}
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Failed to read from input: ", e);
+		}
+		if (unlimited) {
+			stopSearch();
+		}
+		waitForSearch();
+	}
+
+	/**
+	 * Answers one command
+	 * @return false on 'quit'
+	 */
+	boolean execute(String input) {
+		String[] tokens = input.split("\\s+");
+		String command = tokens[0];
+		if (command.equals("uci")) {
+			out.println("id name " + NAME);
+			out.println("id author The Chess authors");
+			out.println("option name Hash type spin default " + DEFAULT_HASH_MEGABYTES + " min 1 max " + MAX_HASH_MEGABYTES);
+			out.println("option name Threads type spin default 1 min 1 max " + MAX_THREADS);
+			out.println("uciok");
+		} else if (command.equals("isready")) {
+			out.println("readyok");
+		} else if (command.equals("ucinewgame")) {
+			waitForSearch();
+			table.clear();
+		} else if (command.equals("setoption")) {
+			waitForSearch();
+			setOption(tokens);
+		} else if (command.equals("position")) {
+			waitForSearch();
+			position(tokens);
+		} else if (command.equals("go")) {
+			waitForSearch();
+			go(tokens);
+		} else if (command.equals("stop")) {
+			stopSearch();
+		} else if (command.equals("quit")) {
+			return false;
+		} else if (command.length() > 0) {
+			out.println("info string Unknown command: " + input);
+		}
+		return true;
+	}
+
+	/**
+	 * Handles "setoption name &lt;name&gt; value &lt;value&gt;"
+	 */
+	private void setOption(String[] tokens) {
+		if (tokens.length != 5 || !tokens[1].equals("name") || !tokens[3].equals("value")
+				|| !NUMBER.matcher(tokens[4]).matches()) {
+			out.println("info string Invalid option");
+			return;
+		}
+		long value = Long.parseLong(tokens[4]);
+		if (tokens[2].equalsIgnoreCase("Threads")) {
+			threads = (int) Math.max(1, Math.min(value, MAX_THREADS));
+		} else if (tokens[2].equalsIgnoreCase("Hash")) {
+			table = new TranspositionTable((int) Math.max(1, Math.min(value, MAX_HASH_MEGABYTES)));
+		} else {
+			out.println("info string Unknown option " + tokens[2]);
+		}
+	}
+
+	/**
+	 * Handles "position startpos|fen &lt;fen&gt; [moves &lt;move&gt;...]"
+	 */
+	private void position(String[] tokens) {
+		int index = 1;
+		String newStart;
+		if (tokens.length > 1 && tokens[1].equals("startpos")) {
+			newStart = "startpos";
+			index = 2;
+		} else if (tokens.length > 1 && tokens[1].equals("fen")) {
+			StringBuilder fen = new StringBuilder();
+			for (index = 2; index < tokens.length && !tokens[index].equals("moves"); index++) {
+				fen.append(fen.length() == 0 ? "" : " ").append(tokens[index]);
+			}
+			newStart = fen.toString();
+		} else {
+			out.println("info string Invalid position");
+			return;
+		}
+		int firstMove = index < tokens.length && tokens[index].equals("moves") ? index + 1 : tokens.length;
+
+		int kept = 0;
+		if (newStart.equals(start)) {
+			int played = gameState.getMoveCount();
+			while (kept < played && firstMove + kept < tokens.length
+					&& isSameMove(gameState.getMove(kept), tokens[firstMove + kept])) {
+				kept++;
+			}
+			for (int i = kept; i < played; i++) {
+				gameState.unmakeMove();
+			}
+		} else {
+			try {
+				if (newStart.equals("startpos")) {
+					gameState.reset();
+				} else {
+					gameState.loadFen(newStart);
+				}
+			} catch (IllegalArgumentException e) {
+				// Nothing is played on a position the GUI did not set up
+				out.println("info string " + e.getMessage());
+				gameState.reset();
+				start = "startpos";
+				return;
+			}
+			start = newStart;
+		}
+
+		for (int i = firstMove + kept; i < tokens.length; i++) {
+			String move = tokens[i];
+			if (!MOVE.matcher(move).matches() || !gameState.movePiece(move.substring(0, 2), move.substring(2, 4))) {
+				out.println("info string Illegal move " + move);
+				return;
+			}
+			movesPlayed++;
+		}
+	}
+
+	private static boolean isSameMove(int move, String uciMove) {
+		return MOVE.matcher(uciMove).matches() && toUci(move).equals(uciMove.substring(0, 4));
+	}
+
+	/**
+	 * Handles "go [depth &lt;n&gt;] [nodes &lt;n&gt;] [movetime &lt;ms&gt;] [wtime &lt;ms&gt;] [btime &lt;ms&gt;]
+	 * [winc &lt;ms&gt;] [binc &lt;ms&gt;] [movestogo &lt;n&gt;] [infinite]"
+	 */
+	private void go(String[] tokens) {
+		int depth = SearchLimits.MAX_DEPTH;
+		long nodes = 0L;
+		long moveTime = 0L;
+		long[] time = new long[2];
+		long[] increment = new long[2];
+		long movesToGo = 0L;
+		for (int i = 1; i < tokens.length; i++) {
+			String name = tokens[i];
+			if (name.equals("infinite") || i + 1 == tokens.length || !NUMBER.matcher(tokens[i + 1]).matches()) {
+				continue;
+			}
+			long value = Long.parseLong(tokens[++i]);
+			if (name.equals("depth")) {
+				depth = (int) Math.min(value, SearchLimits.MAX_DEPTH);
+			} else if (name.equals("nodes")) {
+				nodes = value;
+			} else if (name.equals("movetime")) {
+				moveTime = Math.max(1L, value);
+			} else if (name.equals("wtime") || name.equals("btime")) {
+				time[name.charAt(0) == 'w' ? 0 : 1] = value;
+			} else if (name.equals("winc") || name.equals("binc")) {
+				increment[name.charAt(0) == 'w' ? 0 : 1] = value;
+			} else if (name.equals("movestogo")) {
+				movesToGo = value;
+			}
+		}
+		int side = gameState.getCurrentPlayer() == Player.White ? 0 : 1;
+		if (moveTime == 0L && time[side] > 0L) {
+			long share = time[side] / (movesToGo > 0 ? movesToGo : MOVES_TO_GO) + increment[side];
+			moveTime = Math.max(1L, Math.min(share, time[side] - TIME_RESERVE_MILLIS));
+		}
+		final SearchLimits limits = new SearchLimits(depth, nodes, moveTime);
+		unlimited = depth == SearchLimits.MAX_DEPTH && nodes == 0L && moveTime == 0L;
+
+		search = new Search(gameState, table);
+		search.setThreads(threads);
+		search.setListener(new SearchListener() {
+			@Override
+			public void iterationComplete(SearchResult result) {
+				out.println(String.format("info depth %d score %s nodes %d nps %d time %d pv %s", result.getDepth(),
+						result.getScoreString(), result.getNodes(), result.getNodesPerSecond(), result.getMillis(),
+						toUci(result.getPrincipalVariation())));
+			}
+		});
+		final Search running = search;
+		searchThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				SearchResult result = running.search(limits);
+				int move = result == null ? Move.NONE : result.getBestMove();
+				out.println("bestmove " + (move == Move.NONE ? "0000" : toUci(move)));
+			}
+		}, "uci-search");
+		searchThread.start();
+	}
+
+	private void stopSearch() {
+		if (search != null) {
+			search.stop();
+		}
+		waitForSearch();
+	}
+
+	/**
+	 * Waits for a running search to end by itself; the game must not change under it
+	 */
+	private void waitForSearch() {
+		if (searchThread == null) {
+			return;
+		}
+		try {
+			searchThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		searchThread = null;
+		search = null;
+	}
+
+	/**
+	 * @return The number of moves 'position' commands have played so far, not counting those kept from the game
+	 */
+	long getMovesPlayed() {
+		return movesPlayed;
+	}
+
+	GameState getGameState() {
+		return gameState;
+	}
+
+	/**
+	 * @return The move in UCI notation, i.e. "e2e4"
+	 */
+	static String toUci(int move) {
+		return Position.of(Move.from(move)).toString() + Position.of(Move.to(move)).toString();
+	}
+
+	private static String toUci(int[] moves) {
+		StringBuilder builder = new StringBuilder();
+		for (int move : moves) {
+			builder.append(builder.length() == 0 ? "" : " ").append(toUci(move));
+		}
+		return builder.toString();
+	}
+
+	public static void main(String[] args) {
+		new Uci(System.in, System.out).run();
+	}
+}
@@ -0,0 +1,269 @@
+package chess.board;
+
+import chess.Player;
+
+/**
+ * Precomputed attack masks.  The pieces that jump to a fixed set of squares (knight, king and pawn captures) are a
+ * single array read.  Sliding pieces use magic bitboards: the blockers on the relevant squares are multiplied by a
+ * per-square magic number, and the top bits of the product index a table holding the attacks for that blocker set.
+ * All tables are built once when the class is loaded.
+ */
+public final class Attacks {
+	private static final int[][] KNIGHT_OFFSETS = {{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}};
+	private static final int[][] KING_OFFSETS = {{0, 1}, {1, 1}, {1, 0}, {1, -1}, {0, -1}, {-1, -1}, {-1, 0}, {-1, 1}};
+	private static final int[][] WHITE_PAWN_OFFSETS = {{-1, 1}, {1, 1}};
+	private static final int[][] BLACK_PAWN_OFFSETS = {{-1, -1}, {1, -1}};
+	private static final int[][] ROOK_DIRECTIONS = {{0, 1}, {1, 0}, {0, -1}, {-1, 0}};
+	private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, -1}, {-1, 1}};
+
+	private static final long[] KNIGHT = new long[64];
+	private static final long[] KING = new long[64];
+	private static final long[][] PAWN = new long[2][64];
+	private static final long[][] BETWEEN = new long[64][64];
+
+	private static final long[] ROOK_MASK = new long[64];
+	private static final long[] ROOK_MAGIC = new long[64];
+	private static final int[] ROOK_SHIFT = new int[64];
+	private static final long[][] ROOK = new long[64][];
+	private static final long[] BISHOP_MASK = new long[64];
+	private static final long[] BISHOP_MAGIC = new long[64];
+	private static final int[] BISHOP_SHIFT = new int[64];
+	private static final long[][] BISHOP = new long[64][];
+
+	static {
+		for (int square = 0; square < 64; square++) {
+			KNIGHT[square] = jumps(square, KNIGHT_OFFSETS);
+			KING[square] = jumps(square, KING_OFFSETS);
+			PAWN[Player.White.ordinal()][square] = jumps(square, WHITE_PAWN_OFFSETS);
+			PAWN[Player.Black.ordinal()][square] = jumps(square, BLACK_PAWN_OFFSETS);
+			initBetween(square);
+		}
+
+		// Fixed seeds per row, so every run builds the same tables; these are known to find magics quickly
+		long[] rowSeeds = {728, 10316, 55013, 32803, 12281, 15100, 16645, 255};
+		for (int square = 0; square < 64; square++) {
+			long[] seed = {rowSeeds[square >>> 3]};
+			initMagic(square, ROOK_DIRECTIONS, ROOK_MASK, ROOK_MAGIC, ROOK_SHIFT, ROOK, seed);
+			seed[0] = rowSeeds[square >>> 3];
+			initMagic(square, BISHOP_DIRECTIONS, BISHOP_MASK, BISHOP_MAGIC, BISHOP_SHIFT, BISHOP, seed);
+		}
+	}
+
+	private Attacks() {
+	}
+
+	/**
+	 * @param square The square the knight stands on
+	 * @return The squares a knight attacks from there
+	 */
+	public static long knight(int square) {
+		return KNIGHT[square];
+	}
+
+	/**
+	 * @param square The square the king stands on
+	 * @return The squares a king attacks from there
+	 */
+	public static long king(int square) {
+		return KING[square];
+	}
+
+	/**
+	 * Squares a pawn can capture on.  Read the other way around, pawn(player, square) is also the set of squares
+	 * from which an enemy pawn attacks the given square.
+	 * @param player The owner of the pawn
+	 * @param square The square the pawn stands on
+	 * @return The squares the pawn attacks from there
+	 */
+	public static long pawn(Player player, int square) {
+		return PAWN[player.ordinal()][square];
+	}
+
+	/**
+	 * @param square The square the rook stands on
+	 * @param occupied The mask of all occupied squares
+	 * @return The squares a rook attacks from there, including the first blocker in each direction
+	 */
+	public static long rook(int square, long occupied) {
+		return ROOK[square][(int) (((occupied & ROOK_MASK[square]) * ROOK_MAGIC[square]) >>> ROOK_SHIFT[square])];
+	}
+
+	/**
+	 * @param square The square the bishop stands on
+	 * @param occupied The mask of all occupied squares
+	 * @return The squares a bishop attacks from there, including the first blocker in each direction
+	 */
+	public static long bishop(int square, long occupied) {
+		return BISHOP[square][(int) (((occupied & BISHOP_MASK[square]) * BISHOP_MAGIC[square]) >>> BISHOP_SHIFT[square])];
+	}
+
+	/**
+	 * @param square The square the queen stands on
+	 * @param occupied The mask of all occupied squares
+	 * @return The squares a queen attacks from there, including the first blocker in each direction
+	 */
+	public static long queen(int square, long occupied) {
+		return rook(square, occupied) | bishop(square, occupied);
+	}
+
+	/**
+	 * @param from A square
+	 * @param to Another square
+	 * @return The squares strictly between the two if they share a row, column or diagonal, otherwise nothing
+	 */
+	public static long between(int from, int to) {
+		return BETWEEN[from][to];
+	}
+
+	/**
+	 * Builds the mask of squares at most a number of king steps away.  This is computed on each call, so callers
+	 * should keep the result.
+	 * @param square The center square
+	 * @param distance The largest distance to include
+	 * @return The squares within that distance, the center included
+	 */
+	public static long within(int square, int distance) {
+		long mask = 0L;
+		for (int other = 0; other < 64; other++) {
+			int cols = Math.abs((other & 7) - (square & 7));
+			int rows = Math.abs((other >>> 3) - (square >>> 3));
+			if (Math.max(cols, rows) <= distance) {
+				mask |= 1L << other;
+			}
+		}
+		return mask;
+	}
+
+	private static long jumps(int square, int[][] offsets) {
+		int col = square & 7;
+		int row = square >>> 3;
+		long mask = 0L;
+		for (int[] offset : offsets) {
+			int toCol = col + offset[0];
+			int toRow = row + offset[1];
+			if (toCol >= 0 && toCol < 8 && toRow >= 0 && toRow < 8) {
+				mask |= 1L << (toRow * 8 + toCol);
+			}
+		}
+		return mask;
+	}
+
+	private static void initBetween(int square) {
+		int col = square & 7;
+		int row = square >>> 3;
+		for (int[][] directions : new int[][][] {ROOK_DIRECTIONS, BISHOP_DIRECTIONS}) {
+			for (int[] direction : directions) {
+				long path = 0L;
+				int toCol = col + direction[0];
+				int toRow = row + direction[1];
+				while (toCol >= 0 && toCol < 8 && toRow >= 0 && toRow < 8) {
+					int to = toRow * 8 + toCol;
+					BETWEEN[square][to] = path;
+					path |= 1L << to;
+					toCol += direction[0];
+					toRow += direction[1];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Walks every direction one square at a time.  Only used to fill the tables.
+	 */
+	private static long slide(int square, long occupied, int[][] directions) {
+		int col = square & 7;
+		int row = square >>> 3;
+		long mask = 0L;
+		for (int[] direction : directions) {
+			int toCol = col + direction[0];
+			int toRow = row + direction[1];
+			while (toCol >= 0 && toCol < 8 && toRow >= 0 && toRow < 8) {
+				long bit = 1L << (toRow * 8 + toCol);
+				mask |= bit;
+				if ((occupied & bit) != 0) {
+					break;
+				}
+				toCol += direction[0];
+				toRow += direction[1];
+			}
+		}
+		return mask;
+	}
+
+	/**
+	 * The squares whose occupancy can change the attacks from a square; the last square of each ray never blocks
+	 * anything behind it, so it is left out.
+	 */
+	private static long relevantMask(int square, int[][] directions) {
+		int col = square & 7;
+		int row = square >>> 3;
+		long mask = 0L;
+		for (int[] direction : directions) {
+			int toCol = col + direction[0];
+			int toRow = row + direction[1];
+			while (toCol + direction[0] >= 0 && toCol + direction[0] < 8
+					&& toRow + direction[1] >= 0 && toRow + direction[1] < 8) {
+				mask |= 1L << (toRow * 8 + toCol);
+				toCol += direction[0];
+				toRow += direction[1];
+			}
+		}
+		return mask;
+	}
+
+	/**
+	 * Searches for a magic number that maps every blocker subset of the square's relevant mask to a table slot
+	 * without destructive collisions, then fills the table.
+	 */
+	private static void initMagic(int square, int[][] directions, long[] masks, long[] magics, int[] shifts,
+			long[][] tables, long[] seed) {
+		long mask = relevantMask(square, directions);
+		int bits = Long.bitCount(mask);
+		int size = 1 << bits;
+		long[] occupancies = new long[size];
+		long[] attacks = new long[size];
+		long subset = 0L;
+		for (int i = 0; i < size; i++) {
+			occupancies[i] = subset;
+			attacks[i] = slide(square, subset, directions);
+			subset = (subset - mask) & mask;
+		}
+
+		long[] table = new long[size];
+		int[] epoch = new int[size];
+		int attempt = 0;
+		while (true) {
+			long magic = random(seed) & random(seed) & random(seed);
+			if (Long.bitCount((mask * magic) >>> 56) < 6) {
+				continue;
+			}
+			attempt++;
+			boolean failed = false;
+			for (int i = 0; i < size && !failed; i++) {
+				int index = (int) ((occupancies[i] * magic) >>> (64 - bits));
+				if (epoch[index] != attempt) {
+					epoch[index] = attempt;
+					table[index] = attacks[i];
+				} else if (table[index] != attacks[i]) {
+					failed = true;
+				}
+			}
+			if (!failed) {
+				masks[square] = mask;
+				magics[square] = magic;
+				shifts[square] = 64 - bits;
+				tables[square] = table;
+				return;
+			}
+		}
+	}
+
+	private static long random(long[] seed) {
+		long x = seed[0];
+		x ^= x >>> 12;
+		x ^= x << 25;
+		x ^= x >>> 27;
+		seed[0] = x;
+		return x * 0x2545F4914F6CDD1DL;
+	}
+}
@@ -0,0 +1,90 @@
+package chess.board;
+
+import chess.Player;
+import chess.Position;
+import chess.pieces.Piece;
+import chess.pieces.PieceType;
+
+/**
+ * A board kept as one 64-bit mask per piece type and owner, plus occupancy masks per owner.  A square-indexed
+ * array of the placed pieces answers {@link #getPieceAt(Position)} without touching the masks.
+ */
+public class BitBoard implements Board {
+	private static final int TYPE_COUNT = PieceType.values().length;
+
+	/**
+	 * Masks indexed by owner.ordinal() * 6 + type.ordinal()
+	 */
+	private final long[] pieces = new long[2 * TYPE_COUNT];
+	private final long[] occupiedBy = new long[2];
+	private long occupied;
+	private final Piece[] squares = new Piece[64];
+
+	@Override
+	public Piece getPieceAt(Position position) {
+		int square = position.index();
+		return square < 0 ? null : squares[square];
+	}
+
+	@Override
+	public void placePiece(Piece piece, Position position) {
+		int square = position.index();
+		if (squares[square] != null) {
+			remove(square);
+		}
+		long bit = 1L << square;
+		int owner = piece.getOwner().ordinal();
+		pieces[owner * TYPE_COUNT + piece.getType().ordinal()] |= bit;
+		occupiedBy[owner] |= bit;
+		occupied |= bit;
+		squares[square] = piece;
+	}
+
+	@Override
+	public void removePiece(Position position) {
+		if (position.isOnBoard()) {
+			remove(position.index());
+		}
+	}
+
+	private void remove(int square) {
+		Piece piece = squares[square];
+		if (piece == null) {
+			return;
+		}
+		long bit = ~(1L << square);
+		int owner = piece.getOwner().ordinal();
+		pieces[owner * TYPE_COUNT + piece.getType().ordinal()] &= bit;
+		occupiedBy[owner] &= bit;
+		occupied &= bit;
+		squares[square] = null;
+	}
+
+	@Override
+	public void clear() {
+		for (int i = 0; i < pieces.length; i++) {
+			pieces[i] = 0L;
+		}
+		occupiedBy[0] = 0L;
+		occupiedBy[1] = 0L;
+		occupied = 0L;
+		for (int i = 0; i < squares.length; i++) {
+			squares[i] = null;
+		}
+	}
+
+	@Override
+	public long getPieces(Player owner, PieceType type) {
+		return pieces[owner.ordinal() * TYPE_COUNT + type.ordinal()];
+	}
+
+	@Override
+	public long getOccupied(Player owner) {
+		return occupiedBy[owner.ordinal()];
+	}
+
+	@Override
+	public long getOccupied() {
+		return occupied;
+	}
+}
@@ -0,0 +1,56 @@
+package chess.board;
+
+import chess.Player;
+import chess.Position;
+import chess.pieces.Piece;
+import chess.pieces.PieceType;
+
+/**
+ * Storage for the pieces on the board.  Squares are numbered 0 (a1) to 63 (h8), row by row, and sets of squares
+ * are given as 64-bit masks where bit n stands for square n.
+ */
+public interface Board {
+
+	/**
+	 * Get the piece at a given position on the board
+	 * @param position The position to inquire about
+	 * @return The piece at that position, or null if it does not exist
+	 */
+	Piece getPieceAt(Position position);
+
+	/**
+	 * Place a piece at a given position, replacing whatever was there
+	 * @param piece The piece to place
+	 * @param position The position
+	 */
+	void placePiece(Piece piece, Position position);
+
+	/**
+	 * Remove the piece at a given position, if any
+	 * @param position The position
+	 */
+	void removePiece(Position position);
+
+	/**
+	 * Remove all pieces from the board
+	 */
+	void clear();
+
+	/**
+	 * @param owner The owner of the pieces
+	 * @param type The kind of piece
+	 * @return The mask of squares holding pieces of that type and owner
+	 */
+	long getPieces(Player owner, PieceType type);
+
+	/**
+	 * @param owner The owner of the pieces
+	 * @return The mask of squares holding pieces of that owner
+	 */
+	long getOccupied(Player owner);
+
+	/**
+	 * @return The mask of squares holding any piece
+	 */
+	long getOccupied();
+}
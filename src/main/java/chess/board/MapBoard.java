@@ -0,0 +1,69 @@
+package chess.board;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import chess.Player;
+import chess.Position;
+import chess.pieces.Piece;
+import chess.pieces.PieceType;
+
+/**
+ * A board backed by a map of positions to pieces.  Masks are derived by scanning the map, so this is mostly kept
+ * around as a reference to compare {@link BitBoard} against.
+ */
+public class MapBoard implements Board {
+	private Map<Position, Piece> positionToPieceMap = new HashMap<Position, Piece>();
+
+	@Override
+	public Piece getPieceAt(Position position) {
+		return positionToPieceMap.get(position);
+	}
+
+	@Override
+	public void placePiece(Piece piece, Position position) {
+		positionToPieceMap.put(position, piece);
+	}
+
+	@Override
+	public void removePiece(Position position) {
+		positionToPieceMap.remove(position);
+	}
+
+	@Override
+	public void clear() {
+		positionToPieceMap = new HashMap<Position, Piece>();
+	}
+
+	@Override
+	public long getPieces(Player owner, PieceType type) {
+		long mask = 0L;
+		for (Map.Entry<Position, Piece> pair : positionToPieceMap.entrySet()) {
+			Piece piece = pair.getValue();
+			if (piece.getOwner() == owner && piece.getType() == type) {
+				mask |= 1L << pair.getKey().index();
+			}
+		}
+		return mask;
+	}
+
+	@Override
+	public long getOccupied(Player owner) {
+		long mask = 0L;
+		for (Map.Entry<Position, Piece> pair : positionToPieceMap.entrySet()) {
+			if (pair.getValue().getOwner() == owner) {
+				mask |= 1L << pair.getKey().index();
+			}
+		}
+		return mask;
+	}
+
+	@Override
+	public long getOccupied() {
+		long mask = 0L;
+		for (Position position : positionToPieceMap.keySet()) {
+			mask |= 1L << position.index();
+		}
+		return mask;
+	}
+}
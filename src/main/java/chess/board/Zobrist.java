@@ -0,0 +1,76 @@
+package chess.board;
+
+import chess.Player;
+import chess.pieces.PieceType;
+
+/**
+ * Random keys for Zobrist hashing.  The hash of a position is the XOR of the key of every piece on its square,
+ * plus the side key when Black is to move, so it can be updated incrementally as pieces come and go.
+ */
+public final class Zobrist {
+	private static final int TYPE_COUNT = PieceType.values().length;
+
+	/**
+	 * Keys indexed by (owner.ordinal() * 6 + type.ordinal()) * 64 + square
+	 */
+	private static final long[] PIECES = new long[2 * TYPE_COUNT * 64];
+	private static final long SIDE;
+
+	static {
+		// Fixed seed, so hashes are the same from run to run and can be stored
+		long seed = 0x9E3779B97F4A7C15L;
+		for (int i = 0; i < PIECES.length; i++) {
+			seed = next(seed);
+			PIECES[i] = seed * 0x2545F4914F6CDD1DL;
+		}
+		seed = next(seed);
+		SIDE = seed * 0x2545F4914F6CDD1DL;
+	}
+
+	private Zobrist() {
+	}
+
+	/**
+	 * @param owner The owner of the piece
+	 * @param type The kind of piece
+	 * @param square The square, 0 (a1) to 63 (h8)
+	 * @return The key of that piece standing on that square
+	 */
+	public static long piece(Player owner, PieceType type, int square) {
+		return PIECES[(owner.ordinal() * TYPE_COUNT + type.ordinal()) * 64 + square];
+	}
+
+	/**
+	 * @return The key mixed in when Black is to move
+	 */
+	public static long side() {
+		return SIDE;
+	}
+
+	/**
+	 * Computes a hash from scratch
+	 * @param board The pieces
+	 * @param toMove The player to move
+	 * @return The hash of the position
+	 */
+	public static long hash(Board board, Player toMove) {
+		long hash = toMove == Player.Black ? SIDE : 0L;
+		for (Player owner : Player.values()) {
+			for (PieceType type : PieceType.values()) {
+				long pieces = board.getPieces(owner, type);
+				while (pieces != 0) {
+					hash ^= piece(owner, type, Long.numberOfTrailingZeros(pieces));
+					pieces &= pieces - 1;
+				}
+			}
+		}
+		return hash;
+	}
+
+	private static long next(long x) {
+		x ^= x >>> 12;
+		x ^= x << 25;
+		x ^= x >>> 27;
+		return x;
+	}
+}
@@ -0,0 +1,161 @@
+package chess.book;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import chess.GameState;
+import chess.pieces.move.Move;
+import chess.pieces.move.MoveList;
+
+/**
+ * An opening book file, looked up through a memory mapping so none of it is copied onto the heap.  The file is
+ * written by {@link OpeningBookBuilder}, in big-endian order:
+ * <pre>
+ * header        int magic "CBK1", int entry count
+ * each entry    long position hash, short move (its squares only, see {@link Move#squares}), short weight
+ * </pre>
+ * Entries are sorted by hash, compared as signed longs, and by move; a position is found by binary search.
+ * <p>
+ * Lookups read the mapping by absolute offset only, so one book can be shared by any number of threads.  They
+ * allocate nothing as long as the caller's move list has room, except {@link #bestMove(GameState)}, which is for
+ * occasional use.
+ */
+public class OpeningBook implements Closeable {
+	public static final int MAGIC = 0x43424b31;
+	public static final int HEADER_SIZE = 8;
+	public static final int ENTRY_SIZE = 12;
+
+	private final FileChannel channel;
+	private final MappedByteBuffer buffer;
+	private final int entries;
+
+	/**
+	 * @param path The book file
+	 * @throws IOException If the file cannot be mapped, or is not a book
+	 */
+	public OpeningBook(Path path) throws IOException {
+		channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			long size = channel.size();
+			if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+				throw new IOException(path + " is not an opening book");
+			}
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0L, size);
+			entries = buffer.getInt(4);
+			if (buffer.getInt(0) != MAGIC || entries < 0 || HEADER_SIZE + (long) entries * ENTRY_SIZE != size) {
+				throw new IOException(path + " is not an opening book");
+			}
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return The number of (position, move) entries
+	 */
+	public int size() {
+		return entries;
+	}
+
+	/**
+	 * Finds the book moves of a position.  Moves are not checked against the position; see {@link #getMoves}.
+	 * @param hash The position hash
+	 * @param moves Receives the moves, added in move order
+	 * @param weights Receives the weight of each move found, starting at index 0
+	 * @return The number of moves added; no more than fit in the weights
+	 */
+	public int lookup(long hash, MoveList moves, int[] weights) {
+		int low = 0;
+		int high = entries;
+		// The first entry whose hash is not below the one looked for
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (hashAt(middle) < hash) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		int count = 0;
+		for (int i = low; i < entries && hashAt(i) == hash && count < weights.length; i++) {
+			int offset = HEADER_SIZE + i * ENTRY_SIZE;
+			moves.add(buffer.getShort(offset + 8) & 0xffff);
+			weights[count++] = buffer.getShort(offset + 10) & 0xffff;
+		}
+		return count;
+	}
+
+	/**
+	 * Finds the book moves of a position that are legal in it, so a hash collision cannot suggest a wrong move.  The
+	 * legal moves are generated into the end of the same list for the check, then dropped again; the moves found
+	 * are the generated ones, flags included.
+	 * @param state The position
+	 * @param moves Receives the moves
+	 * @param weights Receives the weight of each move found, starting at index 0
+	 * @return The number of moves added
+	 */
+	public int getMoves(GameState state, MoveList moves, int[] weights) {
+		int start = moves.size();
+		int found = lookup(state.hashKey(), moves, weights);
+		if (found == 0) {
+			return 0;
+		}
+		int legalStart = moves.size();
+		int legalEnd = legalStart + state.generateMoves(moves);
+		int count = 0;
+		for (int i = 0; i < found; i++) {
+			int move = Move.squares(moves.get(start + i));
+			for (int j = legalStart; j < legalEnd; j++) {
+				if (Move.squares(moves.get(j)) == move) {
+					// The generated move, with its flags
+					moves.set(start + count, moves.get(j));
+					weights[count++] = weights[i];
+					break;
+				}
+			}
+		}
+		moves.truncate(start + count);
+		return count;
+	}
+
+	/**
+	 * @param state The position
+	 * @return The legal book move with the most weight, or {@link Move#NONE} if the position is not in the book
+	 */
+	public int bestMove(GameState state) {
+		return bestMove(state, new MoveList(), new int[MoveList.DEFAULT_CAPACITY]);
+	}
+
+	/**
+	 * Like {@link #bestMove(GameState)}, in buffers of the caller's
+	 * @param state The position
+	 * @param moves Scratch space; cleared first
+	 * @param weights Scratch space for the weights; no more moves than fit are looked at
+	 * @return The legal book move with the most weight, or {@link Move#NONE} if the position is not in the book
+	 */
+	public int bestMove(GameState state, MoveList moves, int[] weights) {
+		moves.clear();
+		int count = getMoves(state, moves, weights);
+		int best = 0;
+		for (int i = 1; i < count; i++) {
+			if (weights[i] > weights[best]) {
+				best = i;
+			}
+		}
+		return count == 0 ? Move.NONE : moves.get(best);
+	}
+
+	private long hashAt(int index) {
+		return buffer.getLong(HEADER_SIZE + index * ENTRY_SIZE);
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
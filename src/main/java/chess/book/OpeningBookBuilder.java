@@ -0,0 +1,301 @@
+package chess.book;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import chess.GameState;
+import chess.pgn.PgnGame;
+import chess.pgn.PgnReader;
+import chess.pgn.San;
+import chess.pieces.move.Move;
+import chess.pieces.move.MoveList;
+import chess.record.GameRecordReader;
+
+/**
+ * Builds an {@link OpeningBook} from a corpus of games.  The first moves of each game are counted per position; the
+ * weight of a book move is the number of games that played it there.  Games are streamed, so only the counts are
+ * kept in memory, in a table of primitive arrays.
+ * <p>
+ * Not thread safe.
+ */
+public class OpeningBookBuilder {
+	private static final int MAX_WEIGHT = 0xffff;
+	private static final int INITIAL_CAPACITY = 1 << 12;
+
+	private final int maxPlies;
+	private final GameState work = new GameState();
+	private final MoveList scratch = new MoveList();
+
+	/**
+	 * Open addressing table of (hash, move) pairs and their counts; a count of 0 marks a free slot
+	 */
+	private long[] hashes = new long[INITIAL_CAPACITY];
+	private int[] moves = new int[INITIAL_CAPACITY];
+	private int[] counts = new int[INITIAL_CAPACITY];
+	private int size;
+
+	/**
+	 * @param maxPlies The number of moves of each game to put in the book
+	 */
+	public OpeningBookBuilder(int maxPlies) {
+		this.maxPlies = maxPlies;
+	}
+
+	/**
+	 * Adds the opening of a game
+	 * @param game The game, with its moves since it was set up (see {@link GameState#getMove(int)})
+	 */
+	public void addGame(GameState game) {
+		setUp(game.getStartFen());
+		int plies = Math.min(maxPlies, game.getMoveCount());
+		for (int i = 0; i < plies; i++) {
+			play(game.getMove(i));
+		}
+	}
+
+	/**
+	 * Adds the openings of the games a record file has left
+	 * @param reader The games
+	 * @return The number of games added
+	 * @throws IOException If the games cannot be read
+	 */
+	public long addGames(GameRecordReader reader) throws IOException {
+		long games = 0L;
+		while (reader.nextGame()) {
+			setUp(reader.getStartFen());
+			int plies = Math.min(maxPlies, reader.getPlies());
+			for (int i = 0; i < plies; i++) {
+				play(reader.getMove(i));
+			}
+			games++;
+		}
+		return games;
+	}
+
+	/**
+	 * Adds the openings of the games a PGN reader has left.  A game is only added up to its first move that cannot
+	 * be played.
+	 * @param reader The games
+	 * @return The number of games added
+	 * @throws IOException If the games cannot be read
+	 */
+	public long addGames(PgnReader reader) throws IOException {
+		long games = 0L;
+		PgnGame game;
+		while ((game = reader.next()) != null) {
+			try {
+				setUp(game.getTag("FEN"));
+			} catch (IllegalArgumentException e) {
+				continue;
+			}
+			List<String> sans = game.getMoves();
+			int plies = Math.min(maxPlies, sans.size());
+			for (int i = 0; i < plies; i++) {
+				int move = San.resolve(work, sans.get(i), scratch);
+				if (move == Move.NONE) {
+					break;
+				}
+				play(move);
+			}
+			games++;
+		}
+		return games;
+	}
+
+	/**
+	 * @return The number of distinct (position, move) pairs counted so far
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Writes the book
+	 * @param path The book file to create or replace
+	 * @param minimumWeight Moves played in fewer games are left out
+	 * @return The number of entries written
+	 * @throws IOException If the file cannot be written
+	 */
+	public int write(Path path, int minimumWeight) throws IOException {
+		long[] entryHashes = new long[size];
+		int[] entryMoves = new int[size];
+		int entries = 0;
+		for (int i = 0; i < counts.length; i++) {
+			if (counts[i] >= Math.max(1, minimumWeight)) {
+				entryHashes[entries] = hashes[i];
+				entryMoves[entries] = (moves[i] << 16) | Math.min(counts[i], MAX_WEIGHT);
+				entries++;
+			}
+		}
+		sort(entryHashes, entryMoves, 0, entries - 1);
+
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		try {
+			ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+			buffer.putInt(OpeningBook.MAGIC).putInt(entries);
+			for (int i = 0; i < entries; i++) {
+				if (buffer.remaining() < OpeningBook.ENTRY_SIZE) {
+					writeFully(channel, buffer);
+				}
+				// The move and weight are packed in one int, which is exactly their two shorts
+				buffer.putLong(entryHashes[i]).putInt(entryMoves[i]);
+			}
+			writeFully(channel, buffer);
+		} finally {
+			channel.close();
+		}
+		return entries;
+	}
+
+	private void setUp(String fen) {
+		if (fen == null) {
+			work.reset();
+		} else {
+			work.loadFen(fen);
+		}
+	}
+
+	private void play(int move) {
+		// Counted by squares, so a move stored with or without its flags is the same book move
+		count(work.hashKey(), Move.squares(move));
+		work.makeMove(move);
+	}
+
+	private void count(long hash, int move) {
+		if (2 * (size + 1) > counts.length) {
+			grow();
+		}
+		int mask = counts.length - 1;
+		int slot = slot(hash, move, mask);
+		while (counts[slot] != 0 && (hashes[slot] != hash || moves[slot] != move)) {
+			slot = (slot + 1) & mask;
+		}
+		if (counts[slot] == 0) {
+			hashes[slot] = hash;
+			moves[slot] = move;
+			size++;
+		}
+		counts[slot]++;
+	}
+
+	private static int slot(long hash, int move, int mask) {
+		long mixed = (hash ^ (move * 0x9e3779b97f4a7c15L)) * 0xbf58476d1ce4e5b9L;
+		return (int) (mixed >>> 32) & mask;
+	}
+
+	private void grow() {
+		long[] oldHashes = hashes;
+		int[] oldMoves = moves;
+		int[] oldCounts = counts;
+		hashes = new long[oldCounts.length * 2];
+		moves = new int[oldCounts.length * 2];
+		counts = new int[oldCounts.length * 2];
+		int mask = counts.length - 1;
+		for (int i = 0; i < oldCounts.length; i++) {
+			if (oldCounts[i] != 0) {
+				int slot = slot(oldHashes[i], oldMoves[i], mask);
+				while (counts[slot] != 0) {
+					slot = (slot + 1) & mask;
+				}
+				hashes[slot] = oldHashes[i];
+				moves[slot] = oldMoves[i];
+				counts[slot] = oldCounts[i];
+			}
+		}
+	}
+
+	/**
+	 * Sorts the entries by hash and then by move, keeping the two arrays in step
+	 */
+	private static void sort(long[] keys, int[] values, int low, int high) {
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			long pivotKey = keys[middle];
+			int pivotValue = values[middle];
+			int i = low;
+			int j = high;
+			while (i <= j) {
+				while (compare(keys[i], values[i], pivotKey, pivotValue) < 0) {
+					i++;
+				}
+				while (compare(keys[j], values[j], pivotKey, pivotValue) > 0) {
+					j--;
+				}
+				if (i <= j) {
+					long key = keys[i];
+					keys[i] = keys[j];
+					keys[j] = key;
+					int value = values[i];
+					values[i] = values[j];
+					values[j] = value;
+					i++;
+					j--;
+				}
+			}
+			// Recurse into the smaller part and loop on the larger, so the stack stays shallow
+			if (j - low < high - i) {
+				sort(keys, values, low, j);
+				low = i;
+			} else {
+				sort(keys, values, i, high);
+				high = j;
+			}
+		}
+	}
+
+	private static int compare(long key, int value, long otherKey, int otherValue) {
+		int byKey = Long.compare(key, otherKey);
+		return byKey != 0 ? byKey : Integer.compare(value >>> 16, otherValue >>> 16);
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Builds a book from PGN files and game record files
+	 * @param args The book file to write, the number of moves per game to use, the fewest games a move must be
+	 * played in, then the game files; those ending in ".pgn" are read as PGN, the others as game records
+	 * @throws IOException If a file cannot be read or written
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 4) {
+			System.out.println("Usage: OpeningBookBuilder <book> <plies> <minimum weight> <games.pgn|games.cgr>...");
+			return;
+		}
+		OpeningBookBuilder builder = new OpeningBookBuilder(Integer.parseInt(args[1]));
+		long start = System.nanoTime();
+		long games = 0L;
+		for (int i = 3; i < args.length; i++) {
+			Path path = Paths.get(args[i]);
+			if (args[i].endsWith(".pgn")) {
+				PgnReader reader = new PgnReader(path);
+				try {
+					games += builder.addGames(reader);
+				} finally {
+					reader.close();
+				}
+			} else {
+				GameRecordReader reader = new GameRecordReader(path);
+				try {
+					games += builder.addGames(reader);
+				} finally {
+					reader.close();
+				}
+			}
+		}
+		int entries = builder.write(Paths.get(args[0]), Integer.parseInt(args[2]));
+		System.out.println(String.format("%d games, %d positions and moves, %d entries written in %.1f ms", games,
+				builder.size(), entries, (System.nanoTime() - start) / 1e6));
+	}
+}
@@ -0,0 +1,130 @@
+package chess.engine;
+
+import java.util.Arrays;
+
+import chess.GameState;
+import chess.Player;
+import chess.Position;
+import chess.pieces.move.Move;
+import chess.pieces.move.MoveList;
+
+/**
+ * Decides the order a {@link Search} tries moves in, so that the best move tends to come first and alpha-beta can
+ * cut off the rest: the move from the transposition table, then captures by most valuable victim and least
+ * valuable attacker, then the killer moves of the ply, then quiet moves by how often they caused a cutoff before.
+ * <p>
+ * Moves are scored once and then picked one at a time, since a cutoff usually comes before most of the list is
+ * needed.
+ */
+public class MoveOrdering {
+	private static final int HASH_MOVE = 1 << 30;
+	private static final int CAPTURE = 1 << 29;
+	private static final int FIRST_KILLER = 1 << 28;
+	private static final int SECOND_KILLER = FIRST_KILLER - 1;
+
+	/**
+	 * History scores are halved once one passes this, so they stay below the killers
+	 */
+	private static final int HISTORY_LIMIT = 1 << 20;
+
+	private final int[][] killers = new int[Search.MAX_PLY][2];
+
+	/**
+	 * Butterfly history: cutoff credit per player, origin and destination
+	 */
+	private final int[] history = new int[2 * Position.SQUARE_COUNT * Position.SQUARE_COUNT];
+
+	/**
+	 * Start a new search: forget the killers and age the history
+	 */
+	public void newSearch() {
+		for (int[] plyKillers : killers) {
+			Arrays.fill(plyKillers, Move.NONE);
+		}
+		ageHistory();
+	}
+
+	/**
+	 * Scores every move of the list for {@link #pickNext}
+	 * @param state The position the moves are for
+	 * @param moves The moves
+	 * @param scores Receives the score of each move, at the same index
+	 * @param hashMove The move the transposition table suggests, or {@link Move#NONE}
+	 * @param ply The distance from the root
+	 */
+	public void score(GameState state, MoveList moves, int[] scores, int hashMove, int ply) {
+		int side = state.getCurrentPlayer().ordinal();
+		int[] plyKillers = killers[ply];
+		for (int i = 0; i < moves.size(); i++) {
+			int move = moves.get(i);
+			if (move == hashMove) {
+				scores[i] = HASH_MOVE;
+			} else if (Move.isCapture(move)) {
+				int victim = state.getPieceAt(Position.of(Move.to(move))).getType().ordinal();
+				int attacker = state.getPieceAt(Position.of(Move.from(move))).getType().ordinal();
+				scores[i] = CAPTURE + victim * 8 - attacker;
+			} else if (move == plyKillers[0]) {
+				scores[i] = FIRST_KILLER;
+			} else if (move == plyKillers[1]) {
+				scores[i] = SECOND_KILLER;
+			} else {
+				scores[i] = history[historyIndex(side, move)];
+			}
+		}
+	}
+
+	/**
+	 * Moves the best scored move at or after an index to that index
+	 * @param moves The moves
+	 * @param scores Their scores, from {@link #score}; swapped along with the moves
+	 * @param index The number of moves already picked
+	 * @return The move now at the index
+	 */
+	public int pickNext(MoveList moves, int[] scores, int index) {
+		int best = index;
+		for (int i = index + 1; i < moves.size(); i++) {
+			if (scores[i] > scores[best]) {
+				best = i;
+			}
+		}
+		int move = moves.get(best);
+		if (best != index) {
+			moves.set(best, moves.get(index));
+			moves.set(index, move);
+			int score = scores[best];
+			scores[best] = scores[index];
+			scores[index] = score;
+		}
+		return move;
+	}
+
+	/**
+	 * Credits a quiet move that caused a beta cutoff
+	 * @param player The player who made the move
+	 * @param move The move
+	 * @param depth The remaining depth of the search it cut off
+	 * @param ply The distance from the root
+	 */
+	public void recordCutoff(Player player, int move, int depth, int ply) {
+		int[] plyKillers = killers[ply];
+		if (plyKillers[0] != move) {
+			plyKillers[1] = plyKillers[0];
+			plyKillers[0] = move;
+		}
+		int index = historyIndex(player.ordinal(), move);
+		history[index] += depth * depth;
+		if (history[index] > HISTORY_LIMIT) {
+			ageHistory();
+		}
+	}
+
+	private void ageHistory() {
+		for (int i = 0; i < history.length; i++) {
+			history[i] >>= 1;
+		}
+	}
+
+	private static int historyIndex(int side, int move) {
+		return (side * Position.SQUARE_COUNT + Move.from(move)) * Position.SQUARE_COUNT + Move.to(move);
+	}
+}
@@ -0,0 +1,409 @@
+package chess.engine;
+
+import chess.GameState;
+import chess.book.OpeningBook;
+import chess.pieces.move.Move;
+import chess.pieces.move.MoveList;
+import chess.tablebase.Tablebase;
+
+/**
+ * Finds a good move for the player to move with a negamax alpha-beta search, deepened one ply per iteration until
+ * a {@link SearchLimits} budget runs out.  Results are shared through a {@link TranspositionTable}.
+ * <p>
+ * The search walks the position with make/unmake and leaves it as it was found.  It allocates nothing per node.
+ * <p>
+ * With more than one thread the search runs Lazy SMP: helper threads search copies of the position at the same
+ * time, half of them one ply deeper, and fill the shared table with results the main thread picks up.  Only the
+ * main thread's iterations are reported.
+ * <p>
+ * With an {@link OpeningBook}, a position in the book is not searched at all: its best book move is returned.
+ * With a {@link Tablebase}, every position below the root that is in the tables is scored by one lookup.
+ */
+public class Search {
+	public static final int MATE = 30000;
+	public static final int INFINITY = 32000;
+	static final int MAX_PLY = 128;
+
+	/**
+	 * The clock and node budget are looked at once per this many nodes, plus one
+	 */
+	private static final int CHECK_INTERVAL = 1023;
+
+	private final GameState state;
+	private final TranspositionTable table;
+
+	private final MoveList[] moveLists = new MoveList[MAX_PLY];
+	private final int[][] moveScores = new int[MAX_PLY][MoveList.DEFAULT_CAPACITY];
+	private final MoveOrdering ordering = new MoveOrdering();
+	private final StaticExchange exchange = new StaticExchange();
+	private final int[][] pv = new int[MAX_PLY][MAX_PLY];
+	private final int[] pvLength = new int[MAX_PLY];
+
+	private SearchListener listener;
+	private int threads = 1;
+	private OpeningBook book;
+	private Tablebase tablebase;
+
+	/**
+	 * Set for a helper thread of a Lazy SMP search, which may stop at any time and starts this many plies deeper
+	 */
+	private boolean helper;
+	private int depthOffset;
+
+	private volatile boolean stopRequested;
+	private boolean stopped;
+	private boolean canStop;
+	private long nodes;
+	private long nodeLimit;
+	private long startNanos;
+	private long deadline;
+
+	/**
+	 * @param state The position to search from
+	 * @param table The table to keep results in
+	 */
+	public Search(GameState state, TranspositionTable table) {
+		this.state = state;
+		this.table = table;
+		for (int i = 0; i < MAX_PLY; i++) {
+			moveLists[i] = new MoveList();
+		}
+	}
+
+	/**
+	 * @param listener Told about every completed iteration, or null
+	 */
+	public void setListener(SearchListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * @param book The book to take moves from before searching, or null to always search
+	 */
+	public void setBook(OpeningBook book) {
+		this.book = book;
+	}
+
+	/**
+	 * @param tablebase The endgame tables to score positions from, or null to search them
+	 */
+	public void setTablebase(Tablebase tablebase) {
+		this.tablebase = tablebase;
+	}
+
+	/**
+	 * @param threads The number of threads to search with, including the calling one
+	 */
+	public void setThreads(int threads) {
+		this.threads = Math.max(1, threads);
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Asks a running search to return as soon as possible, once it has a move.  Safe to call from any thread; a stop
+	 * that comes before the search starts is kept, so a search started on another thread can be stopped at once.
+	 */
+	public void stop() {
+		stopRequested = true;
+	}
+
+	/**
+	 * Searches the current position
+	 * @param limits When to stop
+	 * @return The result of the deepest completed iteration, with the nodes counted by all threads; or for a book
+	 * move, a result of depth 0 with no nodes
+	 */
+	public SearchResult search(SearchLimits limits) {
+		if (book != null) {
+			// The lists of the root are free until the search starts
+			int move = book.bestMove(state, moveLists[0], moveScores[0]);
+			if (move != Move.NONE) {
+				stopRequested = false;
+				return new SearchResult(new int[] {move}, 0, 0, 0L, 0L);
+			}
+		}
+		prepare(limits);
+		table.newSearch();
+		ordering.newSearch();
+
+		Search[] helpers = new Search[threads - 1];
+		Thread[] helperThreads = new Thread[threads - 1];
+		for (int i = 0; i < helpers.length; i++) {
+			helpers[i] = new Search(state.copy(), table);
+			helpers[i].tablebase = tablebase;
+			helpers[i].helper = true;
+			helpers[i].depthOffset = (i + 1) % 2;
+			helperThreads[i] = startHelper(helpers[i], i + 1);
+		}
+
+		SearchResult result = null;
+		try {
+			result = iterate(limits);
+		} finally {
+			for (Search search : helpers) {
+				search.stop();
+			}
+			for (Thread thread : helperThreads) {
+				joinHelper(thread);
+			}
+			stopRequested = false;
+		}
+		if (result != null && helpers.length > 0) {
+			long totalNodes = nodes;
+			for (Search search : helpers) {
+				totalNodes += search.nodes;
+			}
+			result = new SearchResult(result.getPrincipalVariation(), result.getScore(), result.getDepth(), totalNodes,
+					result.getMillis());
+		}
+		return result;
+	}
+
+	private void prepare(SearchLimits limits) {
+		stopped = false;
+		canStop = helper;
+		nodes = 0L;
+		nodeLimit = limits.getNodes() > 0 ? limits.getNodes() : Long.MAX_VALUE;
+		startNanos = System.nanoTime();
+		deadline = limits.getMoveTime() > 0 ? startNanos + limits.getMoveTime() * 1000000L : Long.MAX_VALUE;
+	}
+
+	private SearchResult iterate(SearchLimits limits) {
+		SearchResult result = null;
+		for (int depth = 1 + depthOffset; depth <= limits.getDepth(); depth++) {
+			int score = negamax(depth, 0, -INFINITY, INFINITY);
+			if (stopped) {
+				break;
+			}
+			int[] line = new int[pvLength[0]];
+			System.arraycopy(pv[0], 0, line, 0, line.length);
+			result = new SearchResult(line, score, depth, nodes, (System.nanoTime() - startNanos) / 1000000L);
+			if (listener != null) {
+				listener.iterationComplete(result);
+			}
+			// From here on the budget may cut an iteration short; a mate seen within the full depth ends the search
+			canStop = true;
+			if (line.length == 0 || (isMate(score) && MATE - Math.abs(score) <= depth)) {
+				break;
+			}
+		}
+		return result;
+	}
+
+	private static Thread startHelper(final Search search, int number) {
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				// Runs until stopped; a stop that comes before the thread starts is kept, not reset
+				SearchLimits limits = SearchLimits.depth(SearchLimits.MAX_DEPTH);
+				search.prepare(limits);
+				search.iterate(limits);
+			}
+		}, "search-helper-" + number);
+		thread.setDaemon(true);
+		thread.start();
+		return thread;
+	}
+
+	private static void joinHelper(Thread thread) {
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * @param score A search score
+	 * @return true if the score is a forced mate for either player
+	 */
+	public static boolean isMate(int score) {
+		return Math.abs(score) >= MATE - MAX_PLY;
+	}
+
+	private int negamax(int depth, int ply, int alpha, int beta) {
+		pvLength[ply] = ply;
+		nodes++;
+		if ((nodes & CHECK_INTERVAL) == 0) {
+			checkLimits();
+		}
+		if (stopped) {
+			return 0;
+		}
+		if (tablebase != null && ply > 0) {
+			int value = tablebase.probe(state);
+			if (value != Tablebase.NOT_FOUND) {
+				return scoreFromTablebase(value, ply);
+			}
+		}
+		if (depth == 0 || ply == MAX_PLY - 1) {
+			return quiesce(ply, alpha, beta);
+		}
+
+		// Reuse an earlier result that is deep enough, except at the root where a move is needed
+		long key = state.hashKey();
+		long entry = table.probe(key);
+		if (entry != 0 && ply > 0 && TranspositionTable.depth(entry) >= depth) {
+			int score = scoreFromTable(TranspositionTable.score(entry), ply);
+			int bound = TranspositionTable.bound(entry);
+			if (bound == TranspositionTable.BOUND_EXACT
+					|| (bound == TranspositionTable.BOUND_LOWER && score >= beta)
+					|| (bound == TranspositionTable.BOUND_UPPER && score <= alpha)) {
+				return score;
+			}
+		}
+
+		MoveList moves = moveLists[ply];
+		moves.clear();
+		int count = state.generateMoves(moves);
+		if (count == 0) {
+			return state.isInCheck(state.getCurrentPlayer()) ? -MATE + ply : 0;
+		}
+		if (moveScores[ply].length < count) {
+			moveScores[ply] = new int[count];
+		}
+		int[] scores = moveScores[ply];
+		ordering.score(state, moves, scores, entry != 0 ? TranspositionTable.move(entry) : Move.NONE, ply);
+
+		int originalAlpha = alpha;
+		int bestScore = -INFINITY;
+		int bestMove = Move.NONE;
+		for (int i = 0; i < count; i++) {
+			int move = ordering.pickNext(moves, scores, i);
+			state.makeMove(move);
+			int score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+			state.unmakeMove();
+			if (stopped) {
+				return 0;
+			}
+			if (score > bestScore) {
+				bestScore = score;
+				bestMove = move;
+				if (score > alpha) {
+					alpha = score;
+					updatePrincipalVariation(ply, move);
+					if (alpha >= beta) {
+						if (!Move.isCapture(move)) {
+							ordering.recordCutoff(state.getCurrentPlayer(), move, depth, ply);
+						}
+						break;
+					}
+				}
+			}
+		}
+
+		int bound = bestScore >= beta ? TranspositionTable.BOUND_LOWER
+				: bestScore > originalAlpha ? TranspositionTable.BOUND_EXACT : TranspositionTable.BOUND_UPPER;
+		table.store(key, bestMove, scoreToTable(bestScore, ply), depth, bound);
+		return bestScore;
+	}
+
+	/**
+	 * Searches captures only, until the position is quiet, so the evaluation is never taken in the middle of an
+	 * exchange.  Captures that lose material by static exchange are skipped.  A player in check searches every
+	 * evasion instead, since standing still is not an option.
+	 */
+	private int quiesce(int ply, int alpha, int beta) {
+		if (ply == MAX_PLY - 1) {
+			return evaluate();
+		}
+		boolean inCheck = state.isInCheck(state.getCurrentPlayer());
+		MoveList moves = moveLists[ply];
+		moves.clear();
+		int bestScore;
+		int count;
+		if (inCheck) {
+			count = state.generateMoves(moves);
+			if (count == 0) {
+				return -MATE + ply;
+			}
+			bestScore = -INFINITY;
+		} else {
+			bestScore = evaluate();
+			if (bestScore >= beta) {
+				return bestScore;
+			}
+			alpha = Math.max(alpha, bestScore);
+			count = state.generateCaptures(moves);
+		}
+
+		if (moveScores[ply].length < count) {
+			moveScores[ply] = new int[count];
+		}
+		int[] scores = moveScores[ply];
+		ordering.score(state, moves, scores, Move.NONE, ply);
+		for (int i = 0; i < count; i++) {
+			int move = ordering.pickNext(moves, scores, i);
+			if (!inCheck && exchange.evaluate(state, move) < 0) {
+				continue;
+			}
+			state.makeMove(move);
+			nodes++;
+			if ((nodes & CHECK_INTERVAL) == 0) {
+				checkLimits();
+			}
+			int score = -quiesce(ply + 1, -beta, -alpha);
+			state.unmakeMove();
+			if (stopped) {
+				return 0;
+			}
+			if (score > bestScore) {
+				bestScore = score;
+				if (score > alpha) {
+					alpha = score;
+					if (alpha >= beta) {
+						break;
+					}
+				}
+			}
+		}
+		return bestScore;
+	}
+
+	private void updatePrincipalVariation(int ply, int move) {
+		pv[ply][ply] = move;
+		int length = pvLength[ply + 1];
+		System.arraycopy(pv[ply + 1], ply + 1, pv[ply], ply + 1, length - ply - 1);
+		pvLength[ply] = Math.max(length, ply + 1);
+	}
+
+	private void checkLimits() {
+		if (canStop && (stopRequested || nodes >= nodeLimit || System.nanoTime() >= deadline)) {
+			stopped = true;
+		}
+	}
+
+	/**
+	 * @return The static evaluation from the point of view of the player to move
+	 */
+	private int evaluate() {
+		return state.getEvaluation().score(state.getCurrentPlayer());
+	}
+
+	/**
+	 * @param value A tablebase value for the player to move
+	 * @param ply The distance from the root
+	 * @return The same as a search score
+	 */
+	private static int scoreFromTablebase(int value, int ply) {
+		if (value == Tablebase.DRAW) {
+			return 0;
+		}
+		int mateAt = ply + Tablebase.plies(value);
+		return value > 0 ? MATE - mateAt : -MATE + mateAt;
+	}
+
+	/**
+	 * Mate scores count plies from the root; the table stores them counted from the position instead
+	 */
+	private static int scoreToTable(int score, int ply) {
+		return score >= MATE - MAX_PLY ? score + ply : score <= -MATE + MAX_PLY ? score - ply : score;
+	}
+
+	private static int scoreFromTable(int score, int ply) {
+		return score >= MATE - MAX_PLY ? score - ply : score <= -MATE + MAX_PLY ? score + ply : score;
+	}
+}
@@ -0,0 +1,54 @@
+package chess.engine;
+
+/**
+ * How long a {@link Search} may run: up to a depth, a number of nodes or a wall-clock time.  Whichever limit is
+ * reached first ends the search; the first iteration is always completed so there is a move to play.
+ */
+public class SearchLimits {
+	public static final int MAX_DEPTH = 64;
+
+	private final int depth;
+	private final long nodes;
+	private final long moveTime;
+
+	/**
+	 * @param depth The deepest iteration to search, 1 to {@link #MAX_DEPTH}
+	 * @param nodes The most nodes to visit, or 0 for no limit
+	 * @param moveTime The most milliseconds to search for, or 0 for no limit
+	 */
+	public SearchLimits(int depth, long nodes, long moveTime) {
+		this.depth = Math.max(1, Math.min(depth, MAX_DEPTH));
+		this.nodes = nodes;
+		this.moveTime = moveTime;
+	}
+
+	public static SearchLimits depth(int depth) {
+		return new SearchLimits(depth, 0L, 0L);
+	}
+
+	public static SearchLimits nodes(long nodes) {
+		return new SearchLimits(MAX_DEPTH, nodes, 0L);
+	}
+
+	public static SearchLimits moveTime(long milliseconds) {
+		return new SearchLimits(MAX_DEPTH, 0L, milliseconds);
+	}
+
+	public int getDepth() {
+		return depth;
+	}
+
+	/**
+	 * @return The node budget, or 0 for none
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * @return The time budget in milliseconds, or 0 for none
+	 */
+	public long getMoveTime() {
+		return moveTime;
+	}
+}
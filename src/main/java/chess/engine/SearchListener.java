@@ -0,0 +1,12 @@
+package chess.engine;
+
+/**
+ * Receives the result of every search iteration as it completes, for example to print progress
+ */
+public interface SearchListener {
+
+	/**
+	 * @param result The best move, score and line found by the iteration
+	 */
+	void iterationComplete(SearchResult result);
+}
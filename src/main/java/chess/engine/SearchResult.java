@@ -0,0 +1,88 @@
+package chess.engine;
+
+import chess.pieces.move.Move;
+
+/**
+ * The outcome of a completed search iteration: the best move, its score and the line the search expects
+ */
+public class SearchResult {
+	private final int[] principalVariation;
+	private final int score;
+	private final int depth;
+	private final long nodes;
+	private final long millis;
+
+	/**
+	 * @param principalVariation The expected line of play, starting with the best move; empty if there is no move
+	 * @param score The score for the player to move, in centipawns, or a mate score (see {@link Search#isMate(int)})
+	 * @param depth The depth of the iteration
+	 * @param nodes The nodes visited since the search started
+	 * @param millis The milliseconds since the search started
+	 */
+	public SearchResult(int[] principalVariation, int score, int depth, long nodes, long millis) {
+		this.principalVariation = principalVariation;
+		this.score = score;
+		this.depth = depth;
+		this.nodes = nodes;
+		this.millis = millis;
+	}
+
+	/**
+	 * @return The best move, or {@link Move#NONE} if the player to move has none
+	 */
+	public int getBestMove() {
+		return principalVariation.length > 0 ? principalVariation[0] : Move.NONE;
+	}
+
+	public int getScore() {
+		return score;
+	}
+
+	public int getDepth() {
+		return depth;
+	}
+
+	public long getNodes() {
+		return nodes;
+	}
+
+	public long getMillis() {
+		return millis;
+	}
+
+	public long getNodesPerSecond() {
+		return millis == 0 ? 0 : nodes * 1000 / millis;
+	}
+
+	/**
+	 * @return A copy of the expected line of play as packed moves
+	 */
+	public int[] getPrincipalVariation() {
+		return principalVariation.clone();
+	}
+
+	/**
+	 * @return The expected line of play, with the moves in the CLI format and separated by commas
+	 */
+	public String getPrincipalVariationString() {
+		StringBuilder builder = new StringBuilder();
+		for (int move : principalVariation) {
+			if (builder.length() > 0) {
+				builder.append(", ");
+			}
+			builder.append(Move.toString(move));
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * @return The score in words: centipawns, or the number of moves to a mate
+	 */
+	public String getScoreString() {
+		if (!Search.isMate(score)) {
+			return "cp " + score;
+		}
+		int plies = Search.MATE - Math.abs(score);
+		return "mate " + (score > 0 ? (plies + 1) / 2 : -(plies / 2));
+	}
+}
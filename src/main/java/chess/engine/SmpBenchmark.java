@@ -0,0 +1,67 @@
+package chess.engine;
+
+import chess.GameState;
+import chess.perft.PerftSuite;
+
+/**
+ * Measures how Lazy SMP scales: the time to search a set of positions to a fixed depth, at each thread count,
+ * against the time with one thread.  Every run starts from an empty transposition table.
+ */
+public class SmpBenchmark {
+	private static final int[] DEFAULT_THREADS = {1, 2, 4, 8, 16, 32};
+
+	/**
+	 * @param args Optionally the depth (default 7), the size of the transposition table in megabytes (default 64)
+	 * and the thread counts to try, separated by commas (default 1,2,4,8,16,32)
+	 */
+	public static void main(String[] args) {
+		int depth = args.length > 0 ? Integer.parseInt(args[0]) : 7;
+		int megabytes = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+		int[] threadCounts = DEFAULT_THREADS;
+		if (args.length > 2) {
+			String[] counts = args[2].split(",");
+			threadCounts = new int[counts.length];
+			for (int i = 0; i < counts.length; i++) {
+				threadCounts[i] = Integer.parseInt(counts[i].trim());
+			}
+		}
+
+		TranspositionTable table = new TranspositionTable(megabytes);
+		System.out.println(String.format("Time to depth %d over %d positions, %d MB table, %d cores", depth,
+				PerftSuite.REFERENCES.size(), megabytes, Runtime.getRuntime().availableProcessors()));
+
+		// Compile the hot paths first, so the one-thread run the others are compared with is not the slowest
+		timeToDepth(Math.min(depth, 5), 1, table, new long[1]);
+
+		long baseNanos = 0L;
+		for (int threads : threadCounts) {
+			long[] nodes = new long[1];
+			long nanos = timeToDepth(depth, threads, table, nodes);
+			if (baseNanos == 0L) {
+				baseNanos = nanos;
+			}
+			System.out.println(String.format("%3d threads: %10.1f ms %12d nodes %12d nodes/s  speedup %.2f",
+					threads, nanos / 1e6, nodes[0], (long) (nodes[0] * 1e9 / Math.max(1L, nanos)),
+					(double) baseNanos / nanos));
+		}
+	}
+
+	/**
+	 * @param nodes Receives the nodes searched, summed over the positions and threads
+	 * @return The nanoseconds taken to search every position to the depth
+	 */
+	private static long timeToDepth(int depth, int threads, TranspositionTable table, long[] nodes) {
+		long nanos = 0L;
+		for (PerftSuite.Reference reference : PerftSuite.REFERENCES) {
+			GameState state = GameState.fromFen(reference.getFen());
+			table.clear();
+			Search search = new Search(state, table);
+			search.setThreads(threads);
+			long start = System.nanoTime();
+			SearchResult result = search.search(SearchLimits.depth(depth));
+			nanos += System.nanoTime() - start;
+			nodes[0] += result.getNodes();
+		}
+		return nanos;
+	}
+}
@@ -0,0 +1,90 @@
+package chess.engine;
+
+import chess.GameState;
+import chess.Player;
+import chess.Position;
+import chess.board.Attacks;
+import chess.board.Board;
+import chess.pieces.Piece;
+import chess.pieces.PieceType;
+import chess.pieces.move.Move;
+
+/**
+ * Static exchange evaluation: the material a capture wins or loses once both players have made every recapture on
+ * the square that pays, always recapturing with their least valuable piece.  Sliders lined up behind a capturing
+ * piece join in as it leaves.  Pins are not looked at.
+ * <p>
+ * Not thread safe; each search keeps its own.
+ */
+public class StaticExchange {
+	/**
+	 * The king is worth more than everything else together, so it never recaptures into a defended square
+	 */
+	private static final int[] VALUES = {100, 320, 330, 500, 900, 20000};
+
+	private static final int MAX_EXCHANGES = 32;
+
+	/**
+	 * The kinds of piece from the least valuable up; {@code values()} would clone the array on every recapture
+	 */
+	private static final PieceType[] TYPES = PieceType.values();
+
+	private final int[] gain = new int[MAX_EXCHANGES];
+
+	/**
+	 * @param type A kind of piece
+	 * @return Its value in the exchange, in centipawns
+	 */
+	public static int value(PieceType type) {
+		return VALUES[type.ordinal()];
+	}
+
+	/**
+	 * @param state The position
+	 * @param move A capture of the player to move
+	 * @return The material the capture gains for the player making it, in centipawns; negative if it loses
+	 */
+	public int evaluate(GameState state, int move) {
+		Board board = state.getBoard();
+		int to = Move.to(move);
+		long fromBit = 1L << Move.from(move);
+		Piece target = board.getPieceAt(Position.of(to));
+		Piece attacker = board.getPieceAt(Position.of(Move.from(move)));
+		PieceType attackerType = attacker.getType();
+		Player side = attacker.getOwner();
+
+		long diagonals = board.getPieces(Player.White, PieceType.Bishop) | board.getPieces(Player.Black, PieceType.Bishop)
+				| board.getPieces(Player.White, PieceType.Queen) | board.getPieces(Player.Black, PieceType.Queen);
+		long lines = board.getPieces(Player.White, PieceType.Rook) | board.getPieces(Player.Black, PieceType.Rook)
+				| board.getPieces(Player.White, PieceType.Queen) | board.getPieces(Player.Black, PieceType.Queen);
+		long occupied = board.getOccupied();
+		long attackers = state.attackersOf(Position.of(to));
+
+		int depth = 0;
+		gain[0] = target == null ? 0 : value(target.getType());
+		do {
+			depth++;
+			// What the other player stands to make if they take back the piece that just captured
+			gain[depth] = value(attackerType) - gain[depth - 1];
+			occupied ^= fromBit;
+			attackers = (attackers | (Attacks.rook(to, occupied) & lines) | (Attacks.bishop(to, occupied) & diagonals))
+					& occupied;
+			side = side.opponent();
+			fromBit = 0L;
+			for (PieceType type : TYPES) {
+				long candidates = attackers & board.getPieces(side, type);
+				if (candidates != 0) {
+					fromBit = candidates & -candidates;
+					attackerType = type;
+					break;
+				}
+			}
+		} while (fromBit != 0 && depth < MAX_EXCHANGES - 1);
+
+		// Each player only takes back when it pays
+		while (--depth > 0) {
+			gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+		}
+		return gain[0];
+	}
+}
@@ -0,0 +1,158 @@
+package chess.engine;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size hash table of search results keyed by {@link chess.GameState#hashKey()}, safe to share between
+ * threads without locking.
+ * <p>
+ * Each entry is two longs: the packed data, and the position hash XORed with that data.  A reader only accepts an
+ * entry when the two words XOR back to the hash it is looking for, so an entry torn by two threads writing at once
+ * reads as a miss instead of as wrong data.
+ * <p>
+ * Replacement is depth-preferred: a slot holding a different position is only overwritten by a search at least as
+ * deep, unless the slot was written before the last {@link #newSearch()}.
+ */
+public class TranspositionTable {
+	public static final int BOUND_EXACT = 1;
+	public static final int BOUND_LOWER = 2;
+	public static final int BOUND_UPPER = 3;
+
+	private static final int ENTRY_BYTES = 16;
+	private static final int GENERATION_MASK = 0xff;
+
+	private final long[] table;
+	private final int mask;
+	private volatile int generation = 0;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder stores = new LongAdder();
+	private final LongAdder overwrites = new LongAdder();
+
+	/**
+	 * Create a table
+	 * @param megabytes The memory to use; rounded down to a power of two number of entries
+	 */
+	public TranspositionTable(int megabytes) {
+		long entries = Long.highestOneBit(Math.max(1L, (long) megabytes * 1024 * 1024 / ENTRY_BYTES));
+		entries = Math.min(entries, 1L << 29);
+		table = new long[(int) entries * 2];
+		mask = (int) entries - 1;
+	}
+
+	/**
+	 * Look up a position
+	 * @param key The position hash
+	 * @return The packed entry data, or 0 if the position is not in the table
+	 */
+	public long probe(long key) {
+		int index = ((int) key & mask) << 1;
+		long data = table[index + 1];
+		if (data != 0 && (table[index] ^ data) == key) {
+			hits.increment();
+			return data;
+		}
+		misses.increment();
+		return 0L;
+	}
+
+	/**
+	 * Record a search result
+	 * @param key The position hash
+	 * @param move The best move found, or {@link chess.pieces.move.Move#NONE}
+	 * @param score The score, which must fit in 16 signed bits
+	 * @param depth The depth searched, 0 to 255
+	 * @param bound Whether the score is exact or a lower or upper bound
+	 */
+	public void store(long key, int move, int score, int depth, int bound) {
+		int index = ((int) key & mask) << 1;
+		long oldData = table[index + 1];
+		if (oldData != 0) {
+			boolean samePosition = (table[index] ^ oldData) == key;
+			if (!samePosition) {
+				if (generation(oldData) == generation && depth(oldData) > depth) {
+					return;
+				}
+				overwrites.increment();
+			} else if (move == 0) {
+				// Keep the move of a shallower search rather than forget it
+				move = move(oldData);
+			}
+		}
+		long data = (move & 0xffffL)
+				| ((score & 0xffffL) << 16)
+				| ((long) (depth & 0xff) << 32)
+				| ((long) bound << 40)
+				| ((long) generation << 42);
+		table[index] = key ^ data;
+		table[index + 1] = data;
+		stores.increment();
+	}
+
+	/**
+	 * Start a new search; entries from earlier searches become replaceable regardless of depth
+	 */
+	public void newSearch() {
+		generation = (generation + 1) & GENERATION_MASK;
+	}
+
+	/**
+	 * Forget every entry and reset the counters
+	 */
+	public void clear() {
+		for (int i = 0; i < table.length; i++) {
+			table[i] = 0L;
+		}
+		hits.reset();
+		misses.reset();
+		stores.reset();
+		overwrites.reset();
+	}
+
+	/**
+	 * @return The number of entries the table holds
+	 */
+	public int getCapacity() {
+		return mask + 1;
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	public long getStores() {
+		return stores.sum();
+	}
+
+	/**
+	 * @return The number of stores that replaced the entry of a different position
+	 */
+	public long getOverwrites() {
+		return overwrites.sum();
+	}
+
+	public static int move(long data) {
+		return (int) (data & 0xffff);
+	}
+
+	public static int score(long data) {
+		return (short) (data >>> 16);
+	}
+
+	public static int depth(long data) {
+		return (int) ((data >>> 32) & 0xff);
+	}
+
+	public static int bound(long data) {
+		return (int) ((data >>> 40) & 0x3);
+	}
+
+	private static int generation(long data) {
+		return (int) ((data >>> 42) & GENERATION_MASK);
+	}
+}
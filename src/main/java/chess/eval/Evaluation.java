@@ -0,0 +1,82 @@
+package chess.eval;
+
+import chess.Player;
+import chess.Position;
+import chess.board.Board;
+import chess.pieces.Piece;
+
+/**
+ * A static evaluation of material and piece placement, blended from the middlegame to the endgame values as pieces
+ * come off the board.  It is kept up to date piece by piece as the position changes, so reading the score costs
+ * the same however many pieces there are.
+ */
+public class Evaluation {
+	private final int[] middlegame = new int[2];
+	private final int[] endgame = new int[2];
+	private int phase;
+
+	/**
+	 * Account for a piece put on a square
+	 */
+	public void add(Piece piece, int square) {
+		int side = piece.getOwner().ordinal();
+		middlegame[side] += PieceSquareTables.middlegame(piece.getOwner(), piece.getType(), square);
+		endgame[side] += PieceSquareTables.endgame(piece.getOwner(), piece.getType(), square);
+		phase += PieceSquareTables.phase(piece.getType());
+	}
+
+	/**
+	 * Account for a piece taken off a square
+	 */
+	public void remove(Piece piece, int square) {
+		int side = piece.getOwner().ordinal();
+		middlegame[side] -= PieceSquareTables.middlegame(piece.getOwner(), piece.getType(), square);
+		endgame[side] -= PieceSquareTables.endgame(piece.getOwner(), piece.getType(), square);
+		phase -= PieceSquareTables.phase(piece.getType());
+	}
+
+	/**
+	 * Forget every piece
+	 */
+	public void clear() {
+		middlegame[0] = middlegame[1] = 0;
+		endgame[0] = endgame[1] = 0;
+		phase = 0;
+	}
+
+	/**
+	 * @return The game phase, from {@link PieceSquareTables#MAX_PHASE} with every piece on the board to 0
+	 */
+	public int getPhase() {
+		return Math.min(phase, PieceSquareTables.MAX_PHASE);
+	}
+
+	/**
+	 * @param player The player to score for
+	 * @return The evaluation in centipawns, positive when the player stands better
+	 */
+	public int score(Player player) {
+		int us = player.ordinal();
+		int them = 1 - us;
+		int phase = getPhase();
+		return ((middlegame[us] - middlegame[them]) * phase
+				+ (endgame[us] - endgame[them]) * (PieceSquareTables.MAX_PHASE - phase)) / PieceSquareTables.MAX_PHASE;
+	}
+
+	/**
+	 * Evaluates a board from scratch, for checking the incremental score
+	 * @param board The pieces
+	 * @param player The player to score for
+	 * @return The same as {@link #score(Player)} of an evaluation kept up to date with the board
+	 */
+	public static int evaluate(Board board, Player player) {
+		Evaluation evaluation = new Evaluation();
+		long pieces = board.getOccupied();
+		while (pieces != 0) {
+			int square = Long.numberOfTrailingZeros(pieces);
+			pieces &= pieces - 1;
+			evaluation.add(board.getPieceAt(Position.of(square)), square);
+		}
+		return evaluation.score(player);
+	}
+}
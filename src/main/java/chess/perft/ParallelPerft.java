@@ -0,0 +1,166 @@
+package chess.perft;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+import chess.GameState;
+import chess.pieces.move.MoveList;
+
+/**
+ * Counts perft nodes on a fork/join pool.  The root moves, and optionally the replies to them, are split into
+ * tasks; each task counts its subtree with a {@link Perft} on its own copy of the position.
+ * <p>
+ * A {@link PerftCache} may be shared by all tasks, so a subtree reached by transposition in one of them is not
+ * counted again in another.
+ */
+public class ParallelPerft {
+	private final GameState state;
+	private final int threads;
+	private final int splitPlies;
+	private final PerftCache cache;
+
+	/**
+	 * Nodes counted by each worker thread during the last {@link #perft(int)}
+	 */
+	private final ConcurrentHashMap<String, LongAdder> threadNodes = new ConcurrentHashMap<String, LongAdder>();
+
+	/**
+	 * @param state The position to count from; it is only copied, never changed
+	 * @param threads The number of worker threads
+	 * @param splitSecondPly true to split the replies to each root move into tasks as well
+	 * @param cache Subtree counts shared by all workers, or null to count every subtree
+	 */
+	public ParallelPerft(GameState state, int threads, boolean splitSecondPly, PerftCache cache) {
+		this.state = state;
+		this.threads = threads;
+		this.splitPlies = splitSecondPly ? 2 : 1;
+		this.cache = cache;
+	}
+
+	/**
+	 * @param depth The number of plies to search
+	 * @return The number of legal move sequences of that length
+	 */
+	public long perft(int depth) {
+		threadNodes.clear();
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			return pool.invoke(new PerftTask(state.copy(), depth, splitPlies));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * @return The nodes counted by each worker thread during the last {@link #perft(int)}, by thread name
+	 */
+	public Map<String, Long> getThreadNodes() {
+		Map<String, Long> nodes = new TreeMap<String, Long>();
+		for (Map.Entry<String, LongAdder> entry : threadNodes.entrySet()) {
+			nodes.put(entry.getKey(), entry.getValue().sum());
+		}
+		return nodes;
+	}
+
+	private void recordNodes(long nodes) {
+		String thread = Thread.currentThread().getName();
+		LongAdder adder = threadNodes.get(thread);
+		if (adder == null) {
+			LongAdder created = new LongAdder();
+			adder = threadNodes.putIfAbsent(thread, created);
+			if (adder == null) {
+				adder = created;
+			}
+		}
+		adder.add(nodes);
+	}
+
+	/**
+	 * Counts one subtree, splitting it further while plies to split remain
+	 */
+	private class PerftTask extends RecursiveTask<Long> {
+		private static final long serialVersionUID = 1L;
+
+		private final GameState position;
+		private final int depth;
+		private final int splitPlies;
+
+		PerftTask(GameState position, int depth, int splitPlies) {
+			this.position = position;
+			this.depth = depth;
+			this.splitPlies = splitPlies;
+		}
+
+		@Override
+		protected Long compute() {
+			if (splitPlies == 0 || depth < 2) {
+				long nodes = new Perft(position, cache).perft(depth);
+				recordNodes(nodes);
+				return nodes;
+			}
+			MoveList moves = new MoveList();
+			position.generateMoves(moves);
+			List<PerftTask> tasks = new ArrayList<PerftTask>(moves.size());
+			for (int i = 0; i < moves.size(); i++) {
+				position.makeMove(moves.get(i));
+				tasks.add(new PerftTask(position.copy(), depth - 1, splitPlies - 1));
+				position.unmakeMove();
+			}
+			long nodes = 0L;
+			for (PerftTask task : invokeAll(tasks)) {
+				nodes += task.join();
+			}
+			return nodes;
+		}
+	}
+
+	/**
+	 * Counts the initial position at 1, 2, 4, ... threads up to the core count and reports the speedup over one
+	 * thread and the nodes each worker counted.
+	 * @param args Optionally the depth (default 5), the most threads to use (default the core count) and the size of
+	 * a shared cache in megabytes (default 0, no cache)
+	 */
+	public static void main(String[] args) {
+		int depth = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+		int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		int cacheMegabytes = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+		PerftCache cache = cacheMegabytes > 0 ? new PerftCache(cacheMegabytes) : null;
+
+		GameState state = new GameState();
+		state.reset();
+		System.out.println(String.format("Perft %d of the initial position, up to %d threads, %s", depth, maxThreads,
+				cache == null ? "no cache" : cacheMegabytes + " MB cache"));
+		// Compile the hot paths first, so the one-thread run the others are compared with is not the slowest
+		new ParallelPerft(state, maxThreads, true, null).perft(Math.min(depth, 4));
+
+		long baseNanos = 0L;
+		int threads = 1;
+		while (true) {
+			if (cache != null) {
+				cache.clear();
+			}
+			ParallelPerft perft = new ParallelPerft(state, threads, true, cache);
+			long start = System.nanoTime();
+			long nodes = perft.perft(depth);
+			long nanos = System.nanoTime() - start;
+			if (threads == 1) {
+				baseNanos = nanos;
+			}
+			System.out.println(String.format("%3d threads: %12d nodes %10.1f ms %12d nodes/s  speedup %.2f",
+					threads, nodes, nanos / 1e6, PerftSuite.nodesPerSecond(nodes, nanos), (double) baseNanos / nanos));
+			for (Map.Entry<String, Long> entry : perft.getThreadNodes().entrySet()) {
+				System.out.println(String.format("        %-28s %12d nodes", entry.getKey(), entry.getValue()));
+			}
+			if (threads >= maxThreads) {
+				break;
+			}
+			threads = Math.min(threads * 2, maxThreads);
+		}
+	}
+}
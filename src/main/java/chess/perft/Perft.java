@@ -0,0 +1,111 @@
+package chess.perft;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import chess.GameState;
+import chess.pieces.move.Move;
+import chess.pieces.move.MoveList;
+
+/**
+ * Counts the leaf nodes of the legal move tree to a fixed depth.  The counts can be compared with published values
+ * to check move generation, and the time taken measures its speed.
+ * <p>
+ * The game's rules leave out castling, en passant and promotion, so counts only match published values to depths
+ * where none of those moves can occur.
+ */
+public class Perft {
+	private final GameState state;
+	private final PerftCache cache;
+
+	/**
+	 * One move list per remaining depth, so counting does not allocate
+	 */
+	private MoveList[] moveLists = new MoveList[0];
+
+	/**
+	 * @param state The position to count from; it is walked with make/unmake and left as it was found
+	 */
+	public Perft(GameState state) {
+		this(state, null);
+	}
+
+	/**
+	 * @param state The position to count from; it is walked with make/unmake and left as it was found
+	 * @param cache Subtree counts to look up and record, or null to count every subtree
+	 */
+	public Perft(GameState state, PerftCache cache) {
+		this.state = state;
+		this.cache = cache;
+	}
+
+	/**
+	 * @param depth The number of plies to search
+	 * @return The number of legal move sequences of that length
+	 */
+	public long perft(int depth) {
+		ensureMoveLists(depth);
+		return count(depth);
+	}
+
+	/**
+	 * Counts the nodes below each legal move of the current position
+	 * @param depth The number of plies to search, counting the root move
+	 * @return The node count per root move, keyed by the move in the CLI format ("e2 e4"), in generation order
+	 */
+	public Map<String, Long> divide(int depth) {
+		Map<String, Long> counts = new LinkedHashMap<String, Long>();
+		if (depth < 1) {
+			return counts;
+		}
+		ensureMoveLists(depth);
+		MoveList moves = moveLists[depth];
+		moves.clear();
+		state.generateMoves(moves);
+		for (int i = 0; i < moves.size(); i++) {
+			int move = moves.get(i);
+			state.makeMove(move);
+			counts.put(Move.toString(move), depth == 1 ? 1L : count(depth - 1));
+			state.unmakeMove();
+		}
+		return counts;
+	}
+
+	private long count(int depth) {
+		if (depth == 0) {
+			return 1L;
+		}
+		if (cache != null && depth > 1) {
+			long cached = cache.probe(state.hashKey(), depth);
+			if (cached >= 0) {
+				return cached;
+			}
+		}
+		MoveList moves = moveLists[depth];
+		moves.clear();
+		int count = state.generateMoves(moves);
+		if (depth == 1) {
+			return count;
+		}
+		long nodes = 0L;
+		for (int i = 0; i < count; i++) {
+			state.makeMove(moves.get(i));
+			nodes += count(depth - 1);
+			state.unmakeMove();
+		}
+		if (cache != null) {
+			cache.store(state.hashKey(), depth, nodes);
+		}
+		return nodes;
+	}
+
+	private void ensureMoveLists(int depth) {
+		if (moveLists.length <= depth) {
+			MoveList[] lists = new MoveList[depth + 1];
+			for (int i = 0; i < lists.length; i++) {
+				lists[i] = (i < moveLists.length) ? moveLists[i] : new MoveList();
+			}
+			moveLists = lists;
+		}
+	}
+}
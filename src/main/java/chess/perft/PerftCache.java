@@ -0,0 +1,91 @@
+package chess.perft;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size hash table of subtree node counts keyed by position hash and depth, so that a subtree reached by
+ * transposition is only counted once.  It can be shared between threads without locking.
+ * <p>
+ * Entries are stored like those of {@link chess.engine.TranspositionTable}: the packed depth and count, and the
+ * position hash XORed with them, so a torn entry reads as a miss.  The newest count always replaces the old one.
+ */
+public class PerftCache {
+	private static final int ENTRY_BYTES = 16;
+	private static final int DEPTH_BITS = 8;
+	private static final long DEPTH_MASK = (1L << DEPTH_BITS) - 1;
+
+	/**
+	 * Spreads the depths of one position over different slots
+	 */
+	private static final long DEPTH_SPREAD = 0x9E3779B97F4A7C15L;
+
+	private final long[] table;
+	private final int mask;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * Create a cache
+	 * @param megabytes The memory to use; rounded down to a power of two number of entries
+	 */
+	public PerftCache(int megabytes) {
+		long entries = Long.highestOneBit(Math.max(1L, (long) megabytes * 1024 * 1024 / ENTRY_BYTES));
+		entries = Math.min(entries, 1L << 29);
+		table = new long[(int) entries * 2];
+		mask = (int) entries - 1;
+	}
+
+	/**
+	 * Look up a subtree
+	 * @param key The position hash
+	 * @param depth The depth counted below the position
+	 * @return The node count, or -1 if it is not in the cache
+	 */
+	public long probe(long key, int depth) {
+		int index = index(key, depth);
+		long data = table[index + 1];
+		if ((data & DEPTH_MASK) == depth && (table[index] ^ data) == key) {
+			hits.increment();
+			return data >>> DEPTH_BITS;
+		}
+		misses.increment();
+		return -1L;
+	}
+
+	/**
+	 * Record the node count of a subtree
+	 * @param key The position hash
+	 * @param depth The depth counted below the position, 1 to 255
+	 * @param nodes The node count, below 2^56
+	 */
+	public void store(long key, int depth, long nodes) {
+		int index = index(key, depth);
+		long data = (nodes << DEPTH_BITS) | (depth & DEPTH_MASK);
+		table[index] = key ^ data;
+		table[index + 1] = data;
+	}
+
+	/**
+	 * Forget every entry and reset the counters
+	 */
+	public void clear() {
+		for (int i = 0; i < table.length; i++) {
+			table[i] = 0L;
+		}
+		hits.reset();
+		misses.reset();
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	private int index(long key, int depth) {
+		return ((int) (key ^ depth * DEPTH_SPREAD) & mask) << 1;
+	}
+}
@@ -0,0 +1,111 @@
+package chess.perft;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import chess.GameState;
+
+/**
+ * Well-known perft reference positions with their published node counts, and a main class that runs them as a
+ * correctness check and benchmark.
+ * <p>
+ * Only depths free of castling, en passant and promotion are listed, since the game leaves those moves out.
+ */
+public class PerftSuite {
+
+	/**
+	 * A reference position and its published node counts
+	 */
+	public static class Reference {
+		private final String name;
+		private final String fen;
+		private final long[] nodes;
+
+		/**
+		 * @param name A short description
+		 * @param fen The position in Forsyth-Edwards Notation
+		 * @param nodes The node count per depth, starting at depth 1; 0 where no value is listed
+		 */
+		Reference(String name, String fen, long... nodes) {
+			this.name = name;
+			this.fen = fen;
+			this.nodes = nodes;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public String getFen() {
+			return fen;
+		}
+
+		/**
+		 * @return The deepest depth with a listed count
+		 */
+		public int getMaxDepth() {
+			return nodes.length;
+		}
+
+		/**
+		 * @param depth The depth
+		 * @return The published node count, or 0 if none is listed
+		 */
+		public long getNodes(int depth) {
+			return nodes[depth - 1];
+		}
+	}
+
+	public static final List<Reference> REFERENCES;
+	static {
+		List<Reference> references = new ArrayList<Reference>();
+		references.add(new Reference("Initial position",
+				"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1", 20L, 400L, 8902L, 197281L));
+		references.add(new Reference("Position 3",
+				"8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", 14L, 191L));
+		references.add(new Reference("Position 6",
+				"r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10", 46L, 2079L, 89890L, 3894594L));
+		references.add(new Reference("Stalemate and checkmate",
+				"8/8/2k5/5q2/5n2/8/5K2/8 b - - 0 1", 0L, 0L, 0L, 23527L));
+		REFERENCES = Collections.unmodifiableList(references);
+	}
+
+	/**
+	 * Runs the reference positions and reports the counts and speed.  Exits with status 1 if any count is wrong.
+	 * @param args Optionally, the deepest depth to run
+	 */
+	public static void main(String[] args) {
+		int maxDepth = args.length > 0 ? Integer.parseInt(args[0]) : Integer.MAX_VALUE;
+		boolean allPassed = true;
+		long totalNodes = 0L;
+		long totalNanos = 0L;
+		for (Reference reference : REFERENCES) {
+			System.out.println(reference.getName() + ": " + reference.getFen());
+			Perft perft = new Perft(GameState.fromFen(reference.getFen()));
+			for (int depth = 1; depth <= Math.min(maxDepth, reference.getMaxDepth()); depth++) {
+				long expected = reference.getNodes(depth);
+				long start = System.nanoTime();
+				long nodes = perft.perft(depth);
+				long nanos = System.nanoTime() - start;
+				totalNodes += nodes;
+				totalNanos += nanos;
+
+				String result = (expected == 0) ? "" : (nodes == expected ? "  OK" : "  FAILED, expected " + expected);
+				allPassed &= (expected == 0 || nodes == expected);
+				System.out.println(String.format("    depth %d: %12d nodes %10.1f ms %12d nodes/s%s",
+						depth, nodes, nanos / 1e6, nodesPerSecond(nodes, nanos), result));
+			}
+		}
+		System.out.println(String.format("Total: %d nodes in %.1f ms, %d nodes/s",
+				totalNodes, totalNanos / 1e6, nodesPerSecond(totalNodes, totalNanos)));
+		if (!allPassed) {
+			System.out.println("Some node counts were wrong.");
+			System.exit(1);
+		}
+	}
+
+	static long nodesPerSecond(long nodes, long nanos) {
+		return nanos == 0 ? 0 : (long) (nodes * 1e9 / nanos);
+	}
+}
@@ -0,0 +1,119 @@
+package chess.pgn;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One game of a PGN file, as read: its tag pairs and its movetext, not yet replayed
+ */
+public class PgnGame {
+	private final long number;
+	private final Map<String, String> tags;
+	private final String movetext;
+
+	/**
+	 * @param number The position of the game in its file, starting at 1
+	 * @param tags The tag pairs, in file order
+	 * @param movetext The movetext, with its line breaks
+	 */
+	public PgnGame(long number, Map<String, String> tags, String movetext) {
+		this.number = number;
+		this.tags = Collections.unmodifiableMap(tags);
+		this.movetext = movetext;
+	}
+
+	public long getNumber() {
+		return number;
+	}
+
+	public Map<String, String> getTags() {
+		return tags;
+	}
+
+	/**
+	 * @param name The tag name, i.e. "White"
+	 * @return The tag value, or null if the game has no such tag
+	 */
+	public String getTag(String name) {
+		return tags.get(name);
+	}
+
+	public String getMovetext() {
+		return movetext;
+	}
+
+	/**
+	 * @return The SAN moves of the main line, in order, without move numbers, comments, variations, annotation
+	 * glyphs or the result
+	 */
+	public List<String> getMoves() {
+		List<String> moves = new ArrayList<String>();
+		int length = movetext.length();
+		int variationDepth = 0;
+		int i = 0;
+		while (i < length) {
+			char c = movetext.charAt(i);
+			if (c == '{') {
+				int end = movetext.indexOf('}', i + 1);
+				i = end < 0 ? length : end + 1;
+			} else if (c == ';') {
+				// Runs to the end of the line
+				int end = movetext.indexOf('\n', i + 1);
+				i = end < 0 ? length : end + 1;
+			} else if (c == '(') {
+				variationDepth++;
+				i++;
+			} else if (c == ')') {
+				variationDepth = Math.max(0, variationDepth - 1);
+				i++;
+			} else if (Character.isWhitespace(c)) {
+				i++;
+			} else {
+				int start = i;
+				while (i < length && !isDelimiter(movetext.charAt(i))) {
+					i++;
+				}
+				if (variationDepth == 0) {
+					String token = stripMoveNumber(movetext.substring(start, i));
+					if (token.length() > 0 && token.charAt(0) != '$' && !isResult(token)) {
+						moves.add(token);
+					}
+				}
+			}
+		}
+		return moves;
+	}
+
+	private static boolean isDelimiter(char c) {
+		return Character.isWhitespace(c) || c == '{' || c == '(' || c == ')' || c == ';';
+	}
+
+	/**
+	 * Removes a leading move number, i.e. "12." or "12...", which may be written against the move or apart from it
+	 */
+	private static String stripMoveNumber(String token) {
+		int i = 0;
+		while (i < token.length() && Character.isDigit(token.charAt(i))) {
+			i++;
+		}
+		if (i < token.length() && token.charAt(i) != '.') {
+			// Not a move number; "1-0" and "0-0" start with a digit too
+			return token;
+		}
+		while (i < token.length() && token.charAt(i) == '.') {
+			i++;
+		}
+		return token.substring(i);
+	}
+
+	private static boolean isResult(String token) {
+		return token.equals("1-0") || token.equals("0-1") || token.equals("1/2-1/2") || token.equals("*");
+	}
+
+	@Override
+	public String toString() {
+		return "game " + number + " (" + getTag("White") + " - " + getTag("Black") + ")";
+	}
+}
@@ -0,0 +1,322 @@
+package chess.pgn;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import chess.GameState;
+import chess.pieces.move.Move;
+import chess.pieces.move.MoveList;
+
+/**
+ * Replays the games of a PGN file through {@link GameState}, to check them and to measure how fast games can be
+ * played through it.
+ * <p>
+ * The calling thread reads games with a {@link PgnReader} and hands them through a bounded queue to worker threads,
+ * each of which replays whole games on a position of its own.  At most a few games per worker are held at once,
+ * whatever the size of the file.
+ * <p>
+ * If replaying a game or a listener throws, no more games are read and the import rethrows the failure.
+ */
+public class PgnImporter {
+
+	/**
+	 * Told about each game once it is replayed, from the worker thread that replayed it
+	 */
+	public interface Listener {
+		/**
+		 * @param game The game
+		 * @param plies The number of moves played
+		 */
+		void gameReplayed(PgnGame game, int plies);
+
+		/**
+		 * @param game The game
+		 * @param ply The number of the first move that could not be played, starting at 1
+		 * @param san That move, as written
+		 * @param reason Why it could not be played
+		 */
+		void gameBroken(PgnGame game, int ply, String san, String reason);
+	}
+
+	/**
+	 * Totals of one import
+	 */
+	public static class Summary {
+		private final long games;
+		private final long brokenGames;
+		private final long plies;
+		private final long nanos;
+
+		Summary(long games, long brokenGames, long plies, long nanos) {
+			this.games = games;
+			this.brokenGames = brokenGames;
+			this.plies = plies;
+			this.nanos = nanos;
+		}
+
+		public long getGames() {
+			return games;
+		}
+
+		public long getBrokenGames() {
+			return brokenGames;
+		}
+
+		/**
+		 * @return The moves played, over all games
+		 */
+		public long getPlies() {
+			return plies;
+		}
+
+		public long getNanos() {
+			return nanos;
+		}
+
+		public long getGamesPerSecond() {
+			return (long) (games * 1e9 / Math.max(1L, nanos));
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d games (%d broken), %d plies in %.1f ms: %d games/s, %d plies/s", games,
+					brokenGames, plies, nanos / 1e6, getGamesPerSecond(), (long) (plies * 1e9 / Math.max(1L, nanos)));
+		}
+	}
+
+	/**
+	 * Put on the queue once per worker after the last game
+	 */
+	private static final PgnGame END = new PgnGame(0L, Collections.<String, String>emptyMap(), "");
+
+	private static final int GAMES_QUEUED_PER_WORKER = 16;
+
+	/**
+	 * How often a reader waiting for room in the queue checks whether a worker failed
+	 */
+	private static final long FAILURE_CHECK_MILLIS = 50L;
+
+	private final int threads;
+	private final Listener listener;
+
+	/**
+	 * @param threads The number of worker threads
+	 * @param listener Told about every game, or null
+	 */
+	public PgnImporter(int threads, Listener listener) {
+		this.threads = Math.max(1, threads);
+		this.listener = listener;
+	}
+
+	/**
+	 * Replays every game of a file
+	 * @param path The PGN file
+	 * @return The totals
+	 * @throws IOException If the file cannot be read
+	 */
+	public Summary importFile(Path path) throws IOException {
+		PgnReader reader = new PgnReader(path);
+		try {
+			return importGames(reader);
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Replays every game a reader has left
+	 * @param reader The games
+	 * @return The totals
+	 * @throws IOException If the games cannot be read
+	 * @throws RuntimeException What a worker failed with, replaying a game or telling the listener about it
+	 */
+	public Summary importGames(PgnReader reader) throws IOException {
+		final BlockingQueue<PgnGame> queue = new ArrayBlockingQueue<PgnGame>(threads * GAMES_QUEUED_PER_WORKER);
+		final AtomicLong games = new AtomicLong();
+		final AtomicLong brokenGames = new AtomicLong();
+		final AtomicLong plies = new AtomicLong();
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+		long start = System.nanoTime();
+		Thread[] workers = new Thread[threads];
+		for (int i = 0; i < threads; i++) {
+			workers[i] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					GameState state = new GameState();
+					MoveList moves = new MoveList();
+					PgnGame game;
+					try {
+						while ((game = take(queue)) != END) {
+							int played = replay(state, moves, game);
+							games.incrementAndGet();
+							if (played < 0) {
+								brokenGames.incrementAndGet();
+								played = -played - 1;
+							}
+							plies.addAndGet(played);
+						}
+					} catch (Throwable e) {
+						failure.compareAndSet(null, e);
+					}
+				}
+			}, "pgn-worker-" + (i + 1));
+			workers[i].setDaemon(true);
+			workers[i].start();
+		}
+
+		try {
+			PgnGame game;
+			while ((game = reader.next()) != null) {
+				if (!offer(queue, game, failure)) {
+					break;
+				}
+			}
+		} finally {
+			for (int i = 0; i < threads; i++) {
+				if (!offer(queue, END, failure)) {
+					break;
+				}
+			}
+			if (failure.get() != null) {
+				// The workers left may never get to an END, so they are woken instead
+				for (Thread worker : workers) {
+					worker.interrupt();
+				}
+			}
+			for (Thread worker : workers) {
+				join(worker);
+			}
+		}
+		Throwable thrown = failure.get();
+		if (thrown instanceof RuntimeException) {
+			throw (RuntimeException) thrown;
+		} else if (thrown instanceof Error) {
+			throw (Error) thrown;
+		} else if (thrown != null) {
+			throw new RuntimeException("Import failed", thrown);
+		}
+		return new Summary(games.get(), brokenGames.get(), plies.get(), System.nanoTime() - start);
+	}
+
+	/**
+	 * Plays a game from the initial position, or from the position of its FEN tag
+	 * @return The number of moves played, or minus one more than that if a move could not be played
+	 */
+	private int replay(GameState state, MoveList moves, PgnGame game) {
+		String fen = game.getTag("FEN");
+		if (fen == null) {
+			state.reset();
+		} else {
+			try {
+				state.loadFen(fen);
+			} catch (IllegalArgumentException e) {
+				return broken(game, 0, "", "the FEN tag is not a valid position");
+			}
+		}
+		List<String> sans = game.getMoves();
+		for (int ply = 0; ply < sans.size(); ply++) {
+			String san = sans.get(ply);
+			int move = state.isOver() ? Move.NONE : San.resolve(state, san, moves);
+			if (move != Move.NONE) {
+				state.makeMove(move);
+				continue;
+			}
+			// makeMove does not look for mate, so a game the replay itself ended is told by its lack of legal moves
+			String reason;
+			moves.clear();
+			if (state.isOver() || state.generateMoves(moves) == 0) {
+				reason = "the game is already over";
+			} else if (San.isCastling(san)) {
+				reason = "castling is not part of the game";
+			} else if (San.isPromotion(san)) {
+				reason = "promotion is not part of the game";
+			} else {
+				reason = "no single legal move matches";
+			}
+			return broken(game, ply, san, reason);
+		}
+		if (listener != null) {
+			listener.gameReplayed(game, sans.size());
+		}
+		return sans.size();
+	}
+
+	/**
+	 * @param ply The number of moves played before the one that could not be
+	 */
+	private int broken(PgnGame game, int ply, String san, String reason) {
+		if (listener != null) {
+			listener.gameBroken(game, ply + 1, san, reason);
+		}
+		return -ply - 1;
+	}
+
+	private static PgnGame take(BlockingQueue<PgnGame> queue) {
+		try {
+			return queue.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return END;
+		}
+	}
+
+	/**
+	 * Waits for room in the queue, unless a worker fails meanwhile
+	 * @return false if a worker failed, and the game was not queued
+	 */
+	private static boolean offer(BlockingQueue<PgnGame> queue, PgnGame game, AtomicReference<Throwable> failure) {
+		try {
+			while (failure.get() == null) {
+				if (queue.offer(game, FAILURE_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+					return true;
+				}
+			}
+			return false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while importing", e);
+		}
+	}
+
+	private static void join(Thread thread) {
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Replays a PGN file, printing the first illegal move of each broken game and the totals
+	 * @param args The PGN file, and optionally the number of worker threads (default the core count)
+	 * @throws IOException If the file cannot be read
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.out.println("Usage: PgnImporter <file.pgn> [threads]");
+			return;
+		}
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		PgnImporter importer = new PgnImporter(threads, new Listener() {
+			@Override
+			public void gameReplayed(PgnGame game, int plies) {
+			}
+
+			@Override
+			public synchronized void gameBroken(PgnGame game, int ply, String san, String reason) {
+				System.out.println(String.format("%s: move %d '%s': %s", game, ply, san, reason));
+			}
+		});
+		Summary summary = importer.importFile(Paths.get(args[0]));
+		System.out.println(summary + String.format(" on %d threads", threads));
+	}
+}
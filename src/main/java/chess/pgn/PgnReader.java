@@ -0,0 +1,172 @@
+package chess.pgn;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads the games of a PGN file one at a time, through a large direct buffer filled straight from a channel, so a
+ * file of any size is read with memory for one buffer and one game only.
+ * <p>
+ * Bytes are read as ISO-8859-1: moves and tags of the standard are plain ASCII, so only names outside it come out
+ * garbled.  A game ends where the tags of the next one begin, or at the end of the file.
+ */
+public class PgnReader implements Closeable {
+	public static final int BUFFER_SIZE = 1 << 20;
+
+	private final ReadableByteChannel channel;
+	private final ByteBuffer buffer;
+	private final StringBuilder line = new StringBuilder(256);
+
+	private boolean endOfInput;
+	private boolean inComment;
+	private String pendingTag;
+	private long gamesRead;
+
+	/**
+	 * @param path The PGN file
+	 * @throws IOException If the file cannot be opened
+	 */
+	public PgnReader(Path path) throws IOException {
+		this(FileChannel.open(path, StandardOpenOption.READ));
+	}
+
+	/**
+	 * @param channel The PGN text; closed along with the reader
+	 */
+	public PgnReader(ReadableByteChannel channel) {
+		this(channel, BUFFER_SIZE);
+	}
+
+	/**
+	 * @param channel The PGN text; closed along with the reader
+	 * @param bufferSize The number of bytes to read from the channel at a time
+	 */
+	public PgnReader(ReadableByteChannel channel, int bufferSize) {
+		this.channel = channel;
+		this.buffer = ByteBuffer.allocateDirect(bufferSize);
+		buffer.flip();
+	}
+
+	/**
+	 * @return The next game, or null at the end of the input
+	 * @throws IOException If the channel cannot be read
+	 */
+	public PgnGame next() throws IOException {
+		Map<String, String> tags = new LinkedHashMap<String, String>();
+		StringBuilder movetext = new StringBuilder();
+		boolean hasMovetext = false;
+
+		if (pendingTag != null) {
+			addTag(tags, pendingTag);
+			pendingTag = null;
+		}
+		while (readLine()) {
+			if (!inComment && line.length() > 0 && line.charAt(0) == '[') {
+				if (hasMovetext) {
+					// The first tag of the next game
+					pendingTag = line.toString();
+					break;
+				}
+				addTag(tags, line.toString());
+			} else if (line.length() > 0 && line.charAt(0) == '%' && !inComment) {
+				// An escaped line, ignored by the standard
+				continue;
+			} else {
+				for (int i = 0; i < line.length(); i++) {
+					char c = line.charAt(i);
+					if (c == '{') {
+						inComment = true;
+					} else if (c == '}') {
+						inComment = false;
+					}
+					hasMovetext |= !inComment && !Character.isWhitespace(c);
+				}
+				movetext.append(line).append('\n');
+			}
+		}
+
+		if (tags.isEmpty() && !hasMovetext) {
+			return null;
+		}
+		inComment = false;
+		return new PgnGame(++gamesRead, tags, movetext.toString());
+	}
+
+	/**
+	 * Reads the next line, without its line break, into {@link #line}
+	 * @return false at the end of the input
+	 */
+	private boolean readLine() throws IOException {
+		line.setLength(0);
+		while (true) {
+			while (buffer.hasRemaining()) {
+				char c = (char) (buffer.get() & 0xff);
+				if (c == '\n') {
+					trimCarriageReturn();
+					return true;
+				}
+				line.append(c);
+			}
+			if (endOfInput || !fill()) {
+				trimCarriageReturn();
+				return line.length() > 0;
+			}
+		}
+	}
+
+	private boolean fill() throws IOException {
+		buffer.clear();
+		int read;
+		do {
+			read = channel.read(buffer);
+		} while (read == 0);
+		buffer.flip();
+		if (read < 0) {
+			endOfInput = true;
+			return false;
+		}
+		return true;
+	}
+
+	private void trimCarriageReturn() {
+		int length = line.length();
+		if (length > 0 && line.charAt(length - 1) == '\r') {
+			line.setLength(length - 1);
+		}
+	}
+
+	/**
+	 * Adds a tag pair line, i.e. [White "Fischer, Robert J."]; lines that are not one are skipped
+	 */
+	private static void addTag(Map<String, String> tags, String text) {
+		int close = text.lastIndexOf(']');
+		int space = text.indexOf(' ');
+		int open = text.indexOf('"');
+		int end = text.lastIndexOf('"');
+		if (close < 0 || space < 0 || open < 0 || end <= open) {
+			return;
+		}
+		String name = text.substring(1, space).trim();
+		StringBuilder value = new StringBuilder(end - open);
+		for (int i = open + 1; i < end; i++) {
+			char c = text.charAt(i);
+			if (c == '\\' && i + 1 < end) {
+				c = text.charAt(++i);
+			}
+			value.append(c);
+		}
+		tags.put(name, value.toString());
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
@@ -0,0 +1,113 @@
+package chess.pgn;
+
+import chess.GameState;
+import chess.Position;
+import chess.pieces.Piece;
+import chess.pieces.PieceType;
+import chess.pieces.move.Move;
+import chess.pieces.move.MoveList;
+
+/**
+ * Resolves moves in Standard Algebraic Notation, i.e. "Nbd7", "exd5" or "Qh4+", against the legal moves of a
+ * position.  Check and annotation suffixes are ignored; a capture mark must agree with the move.
+ * <p>
+ * Castling and promotion are not part of this game, so such moves never resolve.
+ */
+public final class San {
+	private static final String PIECE_LETTERS = "PNBRQK";
+
+	/**
+	 * The kinds of piece in the order of {@link #PIECE_LETTERS}; {@code values()} would clone the array every move
+	 */
+	private static final PieceType[] TYPES = PieceType.values();
+
+	private San() {
+	}
+
+	/**
+	 * @param san A move in SAN
+	 * @return true if it castles, which the game does not allow
+	 */
+	public static boolean isCastling(String san) {
+		return san.startsWith("O-O") || san.startsWith("0-0");
+	}
+
+	/**
+	 * @param san A move in SAN
+	 * @return true if it promotes a pawn, which the game does not allow
+	 */
+	public static boolean isPromotion(String san) {
+		return san.indexOf('=') >= 0;
+	}
+
+	/**
+	 * @param state The position the move is played in
+	 * @param san The move in SAN
+	 * @param moves Scratch list for the legal moves; cleared first
+	 * @return The packed legal move, or {@link Move#NONE} if no legal move or more than one matches
+	 */
+	public static int resolve(GameState state, String san, MoveList moves) {
+		int end = san.length();
+		while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) {
+			end--;
+		}
+		if (end < 2 || isCastling(san) || isPromotion(san)) {
+			return Move.NONE;
+		}
+		int to = square(san.charAt(end - 2), san.charAt(end - 1));
+		if (to < 0) {
+			return Move.NONE;
+		}
+
+		int start = 0;
+		PieceType type = PieceType.Pawn;
+		int letter = PIECE_LETTERS.indexOf(san.charAt(0));
+		if (letter > 0) {
+			type = TYPES[letter];
+			start = 1;
+		}
+		// What is left between the piece and the destination: an origin file, rank or square, and a capture mark
+		int fromFile = -1;
+		int fromRank = -1;
+		boolean capture = false;
+		for (int i = start; i < end - 2; i++) {
+			char c = san.charAt(i);
+			if (c >= Position.MIN_COLUMN && c <= Position.MAX_COLUMN) {
+				fromFile = c - Position.MIN_COLUMN;
+			} else if (c >= '1' && c <= '8') {
+				fromRank = c - '1';
+			} else if (c == 'x' || c == ':') {
+				capture = true;
+			} else if (c != '-') {
+				return Move.NONE;
+			}
+		}
+
+		moves.clear();
+		state.generateMoves(moves);
+		int found = Move.NONE;
+		for (int i = 0; i < moves.size(); i++) {
+			int move = moves.get(i);
+			int from = Move.from(move);
+			if (Move.to(move) != to || (fromFile >= 0 && from % 8 != fromFile) || (fromRank >= 0 && from / 8 != fromRank)) {
+				continue;
+			}
+			Piece piece = state.getPieceAt(Position.of(from));
+			if (piece.getType() != type || (capture && !Move.isCapture(move))) {
+				continue;
+			}
+			if (found != Move.NONE) {
+				return Move.NONE;
+			}
+			found = move;
+		}
+		return found;
+	}
+
+	private static int square(char column, char row) {
+		if (column < Position.MIN_COLUMN || column > Position.MAX_COLUMN || row < '1' || row > '8') {
+			return -1;
+		}
+		return (row - '1') * 8 + (column - Position.MIN_COLUMN);
+	}
+}
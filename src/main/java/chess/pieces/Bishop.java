@@ -25,4 +25,8 @@ public class Bishop extends Piece {
 		return moveFinder;
 	}
 
+	@Override
+	public PieceType getType() {
+		return PieceType.Bishop;
+	}
 }
@@ -33,6 +33,11 @@ public abstract class Piece {
      */
     public abstract MoveFinder getMoveFinder();
 
+    /**
+     * @return The kind of piece, regardless of its owner
+     */
+    public abstract PieceType getType();
+
     protected abstract char getIdentifyingCharacter();
     
 }
@@ -0,0 +1,32 @@
+package chess.pieces;
+
+import chess.Player;
+
+/**
+ * The kinds of pieces on the board, independent of their owner
+ */
+public enum PieceType {
+	Pawn, Knight, Bishop, Rook, Queen, King;
+
+	/**
+	 * Create a new piece of this type
+	 * @param owner The player owning the piece
+	 * @return The new piece
+	 */
+	public Piece newPiece(Player owner) {
+		switch (this) {
+			case Pawn:
+				return new chess.pieces.Pawn(owner);
+			case Knight:
+				return new chess.pieces.Knight(owner);
+			case Bishop:
+				return new chess.pieces.Bishop(owner);
+			case Rook:
+				return new chess.pieces.Rook(owner);
+			case Queen:
+				return new chess.pieces.Queen(owner);
+			default:
+				return new chess.pieces.King(owner);
+		}
+	}
+}
@@ -24,4 +24,9 @@ public class Queen extends Piece{
 	public MoveFinder getMoveFinder() {
 		return moveFinder;
 	}
+
+	@Override
+	public PieceType getType() {
+		return PieceType.Queen;
+	}
 }
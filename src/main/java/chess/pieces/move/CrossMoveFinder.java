@@ -1,14 +1,13 @@
 package chess.pieces.move;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import chess.GameState;
 import chess.Player;
-import chess.Position;
+import chess.board.Attacks;
+import chess.board.Board;
 
 public class CrossMoveFinder extends MoveFinder {
 	private int range = MoveFinder.RANGE_INFINITE;
+	private long[] rangeMasks;
 	
 	public CrossMoveFinder(Player player) {
 		super(player);
@@ -16,17 +15,22 @@ public class CrossMoveFinder extends MoveFinder {
 	public CrossMoveFinder(Player player, int range) {
 		this(player);
 		this.range = range;
+		if (range != MoveFinder.RANGE_INFINITE) {
+			rangeMasks = new long[64];
+			for (int square = 0; square < 64; square++) {
+				rangeMasks[square] = Attacks.within(square, range);
+			}
+		}
 	}
 
 	@Override
-	public List<Position> findMoves(GameState state, Position starting) {
-		List<Position> movement = new ArrayList<Position>();
-		findMovesInDirection(state, Direction.UP, movement, starting, range);
-		findMovesInDirection(state, Direction.LEFT, movement, starting, range);
-		findMovesInDirection(state, Direction.DOWN, movement, starting, range);
-		findMovesInDirection(state, Direction.RIGHT, movement, starting, range);
-
-		return movement;
+	public long findTargets(GameState state, int square) {
+		Board board = state.getBoard();
+		long targets = Attacks.rook(square, board.getOccupied()) & ~board.getOccupied(player);
+		if (range != MoveFinder.RANGE_INFINITE) {
+			targets &= rangeMasks[square];
+		}
+		return targets;
 	}
 
 }
@@ -1,5 +0,0 @@
-package chess.pieces.move;
-
-public enum Direction {
-	UP, DOWN, RIGHT, LEFT, UP_RIGHT, UP_LEFT, DOWN_RIGHT, DOWN_LEFT;
-}
@@ -0,0 +1,65 @@
+package chess.pieces.move;
+
+import chess.Position;
+
+/**
+ * Helpers for moves packed into an int, so move lists can be kept in plain int arrays.
+ * Bits 0-5 hold the origin square, bits 6-11 the destination square and bits 12-15 the flags.
+ */
+public final class Move {
+	/**
+	 * Value that never encodes a real move
+	 */
+	public static final int NONE = 0;
+
+	/**
+	 * Flag set when the destination holds an enemy piece
+	 */
+	public static final int CAPTURE = 1;
+
+	private Move() {
+	}
+
+	/**
+	 * @param from The origin square, 0 (a1) to 63 (h8)
+	 * @param to The destination square
+	 * @param flags The flags of the move
+	 * @return The packed move
+	 */
+	public static int create(int from, int to, int flags) {
+		return from | (to << 6) | (flags << 12);
+	}
+
+	public static int from(int move) {
+		return move & 0x3f;
+	}
+
+	public static int to(int move) {
+		return (move >>> 6) & 0x3f;
+	}
+
+	public static int flags(int move) {
+		return (move >>> 12) & 0xf;
+	}
+
+	public static boolean isCapture(int move) {
+		return (flags(move) & CAPTURE) != 0;
+	}
+
+	/**
+	 * The game has no promotion, so the two squares alone tell the moves of a position apart
+	 * @param move The packed move
+	 * @return The move without its flags, for comparing moves that may have been stored without them
+	 */
+	public static int squares(int move) {
+		return move & 0xfff;
+	}
+
+	/**
+	 * @param move The packed move
+	 * @return The move in the CLI format, i.e. "e2 e4"
+	 */
+	public static String toString(int move) {
+		return Position.of(from(move)) + " " + Position.of(to(move));
+	}
+}
@@ -1,11 +1,11 @@
 package chess.pieces.move;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import chess.GameState;
 import chess.Player;
 import chess.Position;
-import chess.pieces.Piece;
 
 public abstract class MoveFinder {
 	public static final int RANGE_INFINITE = -1;
@@ -21,119 +21,69 @@ public abstract class MoveFinder {
 		this.player = player;
 	}
 
-	public abstract List<Position> findMoves(GameState state, Position starting);
-	
 	/**
-	 * Recursive function to find possible moves
-	 * @param d
-	 * @param movement
-	 * @param starting
+	 * Finds every square the piece can move to
+	 * @param state
+	 * @param square The square the piece stands on, 0 (a1) to 63 (h8)
+	 * @return The mask of reachable squares, bit n standing for square n
 	 */
-	protected void findMovesInDirection(GameState state, Direction d, List<Position> movement, Position starting) {
-		findMovesInDirection(state, d, movement, starting, -1, true); 
-	}
+	public abstract long findTargets(GameState state, int square);
 
 	/**
-	 * Recursive function to find possibile moves
+	 * Finds every position the piece can move to
 	 * @param state
-	 * @param d
-	 * @param movement
-	 * @param starting
-	 * @param range Optional, if set, the piece can only move within the given range
+	 * @param starting The position the piece stands on
+	 * @return The reachable positions
 	 */
-	protected void findMovesInDirection(GameState state, Direction d, List<Position> movement, Position starting, int range) {
-		findMovesInDirection(state, d, movement, starting, range, true); 
+	public List<Position> findMoves(GameState state, Position starting) {
+		List<Position> movement = new ArrayList<Position>();
+		addTargets(movement, findTargets(state, starting.index()));
+
+		return movement;
 	}
 
 	/**
-	 * Recursive function to find possible moves
-	 * 
+	 * Appends every move of the piece to the list as packed moves, without allocating
 	 * @param state
-	 * @param d
-	 * @param movement
-	 * @param starting
-	 * @param range Optional, if set, the piece can only move within the given range
-	 * @param canAttack Optional, set by default, the piece can attack foe
+	 * @param square The square the piece stands on, 0 (a1) to 63 (h8)
+	 * @param moves The list to append to
+	 * @return The number of moves appended
 	 */
-	protected void findMovesInDirection(GameState state, Direction d, List<Position> movement, Position starting, int range, boolean canAttack) {
-		char col = starting.getColumn();
-		int row = starting.getRow();
-		
-		if (range == 0 || !Position.isOnBoard(starting.getColumn(), starting.getRow())) {
-			return;
-		}
-
-		switch (d) {
-        	case UP_RIGHT:
-        		col++;
-        	case UP:
-        		row++;
-                break;
-        	case DOWN_RIGHT:
-        		row--;
-        	case RIGHT:
-        		col++;
-                break;
-        	case UP_LEFT:
-        		row++;
-        	case LEFT:
-        		col--;
-                break;
-        	case DOWN_LEFT:
-        		col--;
-        	case DOWN:
-        		row--;
-                break;
-			default:
-				break;
-		}
-		
-		Position checkPos = new Position(col, row);
-
-		if (checkAndAddToMovement(state, movement, checkPos, canAttack)) {
-			findMovesInDirection(state, d, movement, checkPos, range-1, canAttack);
-		}
+	public int findMoves(GameState state, int square, MoveList moves) {
+		return findMoves(state, square, -1L, moves);
 	}
 
 	/**
-	 * This function will test if the check position is clear for movement, it will also add to movement accordingly
-	 * 
+	 * Appends the moves of the piece that land inside a mask, such as a pin ray or the squares that answer a check
 	 * @param state
-	 * @param movement
-	 * @param starting
-	 * @param checkPos
-	 * @return false if the check position is a blockage
+	 * @param square The square the piece stands on, 0 (a1) to 63 (h8)
+	 * @param allowed The mask of squares the piece may move to
+	 * @param moves The list to append to
+	 * @return The number of moves appended
 	 */
-	protected boolean checkAndAddToMovement(GameState state, List<Position> movement, Position checkPos) {
-		return checkAndAddToMovement(state, movement, checkPos, true);
+	public int findMoves(GameState state, int square, long allowed, MoveList moves) {
+		long targets = findTargets(state, square) & allowed;
+		long foes = state.getBoard().getOccupied(player.opponent());
+		int count = 0;
+		while (targets != 0) {
+			int to = Long.numberOfTrailingZeros(targets);
+			targets &= targets - 1;
+			moves.add(Move.create(square, to, ((foes >>> to) & 1) != 0 ? Move.CAPTURE : 0));
+			count++;
+		}
+		return count;
 	}
 
 	/**
-	 * This function will test if the check position is clear for movement, it will also add to movement accordingly
-	 * @param state
+	 * Adds every square of a mask to movement
 	 * @param movement
-	 * @param starting
-	 * @param checkPos
-	 * @param canAttack
-	 * @return false if the check position is a blockage
+	 * @param targets The mask of squares to add, bit n standing for square n
 	 */
-	protected boolean checkAndAddToMovement(GameState state, List<Position> movement, Position checkPos, boolean canAttack) {
-		if (!Position.isOnBoard(checkPos.getColumn(), checkPos.getRow())) {
-			return false;
+	protected void addTargets(List<Position> movement, long targets) {
+		while (targets != 0) {
+			movement.add(Position.of(Long.numberOfTrailingZeros(targets)));
+			targets &= targets - 1;
 		}
-
-		Piece checkingPiece = state.getPieceAt(checkPos);
-		if (checkingPiece != null) {
-			if (canAttack) {  //Think Pawn
-				if (checkingPiece.getOwner() != player) {
-					movement.add(checkPos);
-				}
-			} 
-			return false;
-		}
-		movement.add(checkPos);
-		
-		return true;
 	}
-	
+
 }
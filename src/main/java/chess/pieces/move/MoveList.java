@@ -0,0 +1,69 @@
+package chess.pieces.move;
+
+/**
+ * A reusable, growable list of packed moves (see {@link Move}).  Callers keep one around and clear it between uses,
+ * so generating moves does not allocate.
+ */
+public class MoveList {
+	/**
+	 * Enough for any position reachable in a game
+	 */
+	public static final int DEFAULT_CAPACITY = 256;
+
+	private int[] moves;
+	private int size;
+
+	public MoveList() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public MoveList(int capacity) {
+		moves = new int[capacity];
+	}
+
+	public void add(int move) {
+		if (size == moves.length) {
+			int[] grown = new int[moves.length * 2];
+			System.arraycopy(moves, 0, grown, 0, size);
+			moves = grown;
+		}
+		moves[size++] = move;
+	}
+
+	public int get(int index) {
+		return moves[index];
+	}
+
+	public void set(int index, int move) {
+		moves[index] = move;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Drop moves from the end of the list
+	 * @param size The number of moves to keep
+	 */
+	public void truncate(int size) {
+		this.size = size;
+	}
+
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * @param move A packed move
+	 * @return true if the move is in the list
+	 */
+	public boolean contains(int move) {
+		for (int i = 0; i < size; i++) {
+			if (moves[i] == move) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
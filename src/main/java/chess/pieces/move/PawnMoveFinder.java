@@ -1,12 +1,9 @@
 package chess.pieces.move;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import chess.GameState;
 import chess.Player;
-import chess.Position;
-import chess.pieces.Piece;
+import chess.board.Attacks;
+import chess.board.Board;
 
 public class PawnMoveFinder extends MoveFinder {
 
@@ -15,50 +12,28 @@ public class PawnMoveFinder extends MoveFinder {
 	}
 
 	@Override
-	public List<Position> findMoves(GameState state, Position starting) {
-		List<Position> movement = new ArrayList<Position>();
-		Piece pawn = state.getPieceAt(starting);
-		
-		char col = starting.getColumn();
-		int row = starting.getRow();
-		if (pawn.getOwner() == Player.White) {
+	public long findTargets(GameState state, int square) {
+		Board board = state.getBoard();
+		long empty = ~board.getOccupied();
+		long pawn = 1L << square;
+		int row = (square >>> 3) + 1;
+
+		long pushes;
+		if (player == Player.White) {
+			pushes = (pawn << 8) & empty;
 			if (row == 2) { //First time moving
-				findMovesInDirection(state, Direction.UP, movement, starting, 2, false);
-			} else {
-				findMovesInDirection(state, Direction.UP, movement, starting, 1, false);
-			}
-			//Check possible attacks
-			Position checkPos = new Position((char)(col+1), row+1);
-			if (checkAttack(state, checkPos)) {
-				movement.add(checkPos);
-			}
-			checkPos = new Position((char)(col-1), row+1);
-			if (checkAttack(state, checkPos)) {
-				movement.add(checkPos);
+				pushes |= (pushes << 8) & empty;
 			}
 		} else {
+			pushes = (pawn >>> 8) & empty;
 			if (row == 7) { //First time moving
-				findMovesInDirection(state, Direction.DOWN, movement, starting, 2, false);
-			} else {
-				findMovesInDirection(state, Direction.DOWN, movement, starting, 1, false);
-			}
-			//Check possible attacks
-			Position checkPos = new Position((char)(col+1), row-1);
-			if (checkAttack(state, checkPos)) {
-				movement.add(checkPos);
-			}
-			checkPos = new Position((char)(col-1), row-1);
-			if (checkAttack(state, checkPos)) {
-				movement.add(checkPos);
+				pushes |= (pushes >>> 8) & empty;
 			}
 		}
+		//Check possible attacks
+		long attacks = Attacks.pawn(player, square) & board.getOccupied(player.opponent());
 
-		return movement;
-	}
-	
-	private boolean checkAttack(GameState state, Position checkPos) {
-		Piece foe = state.getPieceAt(checkPos);
-		return (foe != null && foe.getOwner() != player);
+		return pushes | attacks;
 	}
 
 }
@@ -0,0 +1,66 @@
+package chess.record;
+
+import chess.GameState;
+import chess.Player;
+
+/**
+ * The layout of a game record file, in big-endian order:
+ * <pre>
+ * file header   int magic "CGR1", short version, short reserved
+ * each game     short plies, byte result, byte start FEN length (0 for the initial position),
+ *               the start FEN in ASCII, then one short per move
+ * </pre>
+ * A move is the low 16 bits of a packed {@link chess.pieces.move.Move}: origin square, destination square and flags.
+ */
+public final class GameRecordFormat {
+	public static final int MAGIC = 0x43475231;
+	public static final short VERSION = 1;
+	public static final int FILE_HEADER_SIZE = 8;
+	public static final int GAME_HEADER_SIZE = 4;
+
+	public static final int MAX_PLIES = 0xffff;
+	public static final int MAX_FEN_LENGTH = 0xff;
+
+	/**
+	 * Results, as stored
+	 */
+	public static final int RESULT_UNKNOWN = 0;
+	public static final int RESULT_WHITE_WINS = 1;
+	public static final int RESULT_BLACK_WINS = 2;
+	public static final int RESULT_DRAW = 3;
+
+	private GameRecordFormat() {
+	}
+
+	/**
+	 * @param state A game
+	 * @return How it ended, or {@link #RESULT_UNKNOWN} if it has not
+	 */
+	public static int resultOf(GameState state) {
+		if (!state.isOver()) {
+			return RESULT_UNKNOWN;
+		}
+		if (state.isStalemate()) {
+			return RESULT_DRAW;
+		}
+		// Checkmated, or the king was taken: the player to move lost
+		return state.getCurrentPlayer() == Player.White ? RESULT_BLACK_WINS : RESULT_WHITE_WINS;
+	}
+
+	/**
+	 * @param result A stored result
+	 * @return The result as written in PGN
+	 */
+	public static String toString(int result) {
+		switch (result) {
+			case RESULT_WHITE_WINS:
+				return "1-0";
+			case RESULT_BLACK_WINS:
+				return "0-1";
+			case RESULT_DRAW:
+				return "1/2-1/2";
+			default:
+				return "*";
+		}
+	}
+}
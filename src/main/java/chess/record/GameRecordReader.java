@@ -0,0 +1,253 @@
+package chess.record;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import chess.GameState;
+import chess.pieces.move.Move;
+import chess.pieces.move.MoveList;
+
+/**
+ * Reads a game record file (see {@link GameRecordFormat}) through memory mapping, one game at a time.  Moves are
+ * read straight from the mapped file, so scanning games costs little more than the disk.
+ * <p>
+ * Files are mapped in windows, so they may be larger than one mapping allows; a window always starts at a game, and
+ * is moved on when the next game does not fit in it.
+ */
+public class GameRecordReader implements Closeable {
+	private static final long DEFAULT_WINDOW_SIZE = 1L << 28;
+
+	private final FileChannel channel;
+	private final long size;
+	private final long windowSize;
+
+	private MappedByteBuffer window;
+	private long windowStart;
+
+	/**
+	 * File offset of the game after the current one
+	 */
+	private long next = GameRecordFormat.FILE_HEADER_SIZE;
+
+	private int plies;
+	private int result;
+	private String startFen;
+	private int movesOffset;
+
+	/**
+	 * @param path The game record file
+	 * @throws IOException If the file cannot be opened, or is not a game record file
+	 */
+	public GameRecordReader(Path path) throws IOException {
+		this(path, DEFAULT_WINDOW_SIZE);
+	}
+
+	/**
+	 * @param path The game record file
+	 * @param windowSize The most bytes to map at once; at least the size of the longest game
+	 * @throws IOException If the file cannot be opened, or is not a game record file
+	 */
+	GameRecordReader(Path path, long windowSize) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.READ);
+		this.size = channel.size();
+		this.windowSize = windowSize;
+		if (size < GameRecordFormat.FILE_HEADER_SIZE) {
+			channel.close();
+			throw new IOException(path + " is not a game record file");
+		}
+		map(0L);
+		if (window.getInt(0) != GameRecordFormat.MAGIC || window.getShort(4) != GameRecordFormat.VERSION) {
+			channel.close();
+			throw new IOException(path + " is not a game record file");
+		}
+	}
+
+	/**
+	 * Moves on to the next game
+	 * @return false if there are no more games
+	 * @throws IOException If the file cannot be mapped or the game is cut short
+	 */
+	public boolean nextGame() throws IOException {
+		if (next >= size) {
+			return false;
+		}
+		ensureMapped(next, GameRecordFormat.GAME_HEADER_SIZE);
+		int offset = (int) (next - windowStart);
+		plies = window.getShort(offset) & 0xffff;
+		result = window.get(offset + 2) & 0xff;
+		int fenLength = window.get(offset + 3) & 0xff;
+		int length = GameRecordFormat.GAME_HEADER_SIZE + fenLength + 2 * plies;
+		ensureMapped(next, length);
+		offset = (int) (next - windowStart);
+
+		if (fenLength == 0) {
+			startFen = null;
+		} else {
+			byte[] fen = new byte[fenLength];
+			for (int i = 0; i < fenLength; i++) {
+				fen[i] = window.get(offset + GameRecordFormat.GAME_HEADER_SIZE + i);
+			}
+			startFen = new String(fen, StandardCharsets.US_ASCII);
+		}
+		movesOffset = offset + GameRecordFormat.GAME_HEADER_SIZE + fenLength;
+		next += length;
+		return true;
+	}
+
+	/**
+	 * @return The number of moves of the current game
+	 */
+	public int getPlies() {
+		return plies;
+	}
+
+	/**
+	 * @return How the current game ended, one of the results of {@link GameRecordFormat}
+	 */
+	public int getResult() {
+		return result;
+	}
+
+	/**
+	 * @return The position the current game starts from in FEN, or null for the initial position
+	 */
+	public String getStartFen() {
+		return startFen;
+	}
+
+	/**
+	 * @param index The number of the move in the current game, starting at 0
+	 * @return The packed move
+	 */
+	public int getMove(int index) {
+		return window.getShort(movesOffset + 2 * index) & 0xffff;
+	}
+
+	/**
+	 * Plays the current game into a game state with {@link GameState#makeMove(int)}, without checking the moves
+	 * @param state Set up with the start position of the game, and left at its end
+	 */
+	public void replay(GameState state) {
+		if (startFen == null) {
+			state.reset();
+		} else {
+			state.loadFen(startFen);
+		}
+		for (int i = 0; i < plies; i++) {
+			state.makeMove(getMove(i));
+		}
+	}
+
+	/**
+	 * Plays the current game into a game state like {@link #replay(GameState)}, but checks every move against the
+	 * legal moves first and makes the generated one.  Moves are matched on their squares, since a file may hold
+	 * them without their flags.
+	 * @param state Set up with the start position of the game, and left before the first move that is not legal
+	 * @param moves Scratch list for the legal moves
+	 * @return The number of the first move that is not legal, starting at 0, or -1 if they all are
+	 */
+	public int verify(GameState state, MoveList moves) {
+		if (startFen == null) {
+			state.reset();
+		} else {
+			state.loadFen(startFen);
+		}
+		for (int i = 0; i < plies; i++) {
+			int move = Move.squares(getMove(i));
+			moves.clear();
+			int count = state.generateMoves(moves);
+			int legal = Move.NONE;
+			for (int j = 0; j < count && legal == Move.NONE; j++) {
+				if (Move.squares(moves.get(j)) == move) {
+					legal = moves.get(j);
+				}
+			}
+			if (legal == Move.NONE) {
+				return i;
+			}
+			state.makeMove(legal);
+		}
+		return -1;
+	}
+
+	private void ensureMapped(long position, int length) throws IOException {
+		if (position + length > size) {
+			throw new IOException("Game record at " + position + " is cut short");
+		}
+		if (position < windowStart || position + length > windowStart + window.limit()) {
+			if (length > windowSize) {
+				throw new IOException("Game record at " + position + " is larger than the mapping window");
+			}
+			map(position);
+		}
+	}
+
+	private void map(long position) throws IOException {
+		windowStart = position;
+		window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(windowSize, size - position));
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * Scans a game record file and reports the games, moves and speed
+	 * @param args The file, and optionally "replay" to play every game through a game state as well, or "verify" to
+	 * also check that every move is legal and report the first one that is not
+	 * @throws IOException If the file cannot be read
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.out.println("Usage: GameRecordReader <file> [replay|verify]");
+			return;
+		}
+		boolean verify = args.length > 1 && args[1].equals("verify");
+		boolean replay = verify || (args.length > 1 && args[1].equals("replay"));
+
+		GameState state = new GameState();
+		MoveList moves = new MoveList();
+		long games = 0L;
+		long totalPlies = 0L;
+		long checksum = 0L;
+		long start = System.nanoTime();
+		GameRecordReader reader = new GameRecordReader(Paths.get(args[0]));
+		try {
+			while (reader.nextGame()) {
+				games++;
+				totalPlies += reader.getPlies();
+				if (!replay) {
+					for (int i = 0; i < reader.getPlies(); i++) {
+						checksum += reader.getMove(i);
+					}
+				} else if (!verify) {
+					reader.replay(state);
+					checksum += state.hashKey();
+				} else {
+					verifyGame(reader, state, moves, games);
+				}
+			}
+		} finally {
+			reader.close();
+		}
+		long nanos = Math.max(1L, System.nanoTime() - start);
+		System.out.println(String.format("%d games, %d plies, %d bytes in %.1f ms: %d games/s, %.1f MB/s (checksum %x)",
+				games, totalPlies, reader.size, nanos / 1e6, (long) (games * 1e9 / nanos), reader.size * 1e3 / nanos,
+				checksum));
+	}
+
+	private static void verifyGame(GameRecordReader reader, GameState state, MoveList moves, long number) {
+		int illegal = reader.verify(state, moves);
+		if (illegal >= 0) {
+			System.out.println(String.format("Game %d: move %d (%s) is not legal", number, illegal + 1,
+					Move.toString(reader.getMove(illegal))));
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package chess.record;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import chess.GameState;
+
+/**
+ * Appends games to a game record file (see {@link GameRecordFormat}), creating it if needed.  A game is written
+ * from the moves its {@link GameState} can take back, so whatever was played with
+ * {@link GameState#movePiece(String, String)} or {@link GameState#makeMove(int)} since it was set up.
+ * <p>
+ * Records are collected in a buffer and written when it fills or the writer is closed.
+ */
+public class GameRecordWriter implements Closeable {
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+	private long gamesWritten;
+
+	/**
+	 * @param path The file to append to
+	 * @throws IOException If the file cannot be opened, or is not a game record file
+	 */
+	public GameRecordWriter(Path path) throws IOException {
+		channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			long size = channel.size();
+			if (size == 0) {
+				buffer.putInt(GameRecordFormat.MAGIC).putShort(GameRecordFormat.VERSION).putShort((short) 0);
+			} else {
+				ByteBuffer header = ByteBuffer.allocate(GameRecordFormat.FILE_HEADER_SIZE);
+				while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+					// Keep reading until the header is complete
+				}
+				if (header.hasRemaining() || header.getInt(0) != GameRecordFormat.MAGIC
+						|| header.getShort(4) != GameRecordFormat.VERSION) {
+					throw new IOException(path + " is not a game record file");
+				}
+			}
+			channel.position(size);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Adds a game
+	 * @param state The game, with its moves since it was set up
+	 * @throws IOException If the file cannot be written
+	 * @throws IllegalArgumentException If the game is too long or its start position too long a FEN to store
+	 */
+	public void write(GameState state) throws IOException {
+		int plies = state.getMoveCount();
+		String fen = state.getStartFen();
+		byte[] fenBytes = fen == null ? new byte[0] : fen.trim().getBytes(StandardCharsets.US_ASCII);
+		if (plies > GameRecordFormat.MAX_PLIES || fenBytes.length > GameRecordFormat.MAX_FEN_LENGTH) {
+			throw new IllegalArgumentException("The game does not fit in a record");
+		}
+
+		int size = GameRecordFormat.GAME_HEADER_SIZE + fenBytes.length + 2 * plies;
+		if (buffer.remaining() < size) {
+			flush();
+		}
+		ByteBuffer target = size <= buffer.capacity() ? buffer : ByteBuffer.allocate(size);
+		target.putShort((short) plies);
+		target.put((byte) GameRecordFormat.resultOf(state));
+		target.put((byte) fenBytes.length);
+		target.put(fenBytes);
+		for (int i = 0; i < plies; i++) {
+			target.putShort((short) state.getMove(i));
+		}
+		if (target != buffer) {
+			target.flip();
+			writeFully(target);
+		}
+		gamesWritten++;
+	}
+
+	/**
+	 * @return The number of games written by this writer
+	 */
+	public long getGamesWritten() {
+		return gamesWritten;
+	}
+
+	/**
+	 * Writes the buffered records to the file
+	 * @throws IOException If the file cannot be written
+	 */
+	public void flush() throws IOException {
+		buffer.flip();
+		writeFully(buffer);
+		buffer.clear();
+	}
+
+	private void writeFully(ByteBuffer source) throws IOException {
+		while (source.hasRemaining()) {
+			channel.write(source);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			flush();
+		} finally {
+			channel.close();
+		}
+	}
+}
@@ -0,0 +1,173 @@
+package chess.tablebase;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import chess.GameState;
+import chess.Player;
+import chess.board.Board;
+import chess.pieces.PieceType;
+
+/**
+ * Exact results of the endings of king and queen, rook or pawn against king, read from tables written by
+ * {@link TablebaseGenerator}.  The tables are memory mapped, so they stay off the heap, and looking up a position
+ * costs a few bit operations and one read.
+ * <p>
+ * A table file holds an int magic "CTB1", the int ordinal of the piece, then one byte per position of the compact
+ * index (see {@link TablebaseIndex}).  A value, as {@link #probe} returns it, is from the point of view of the side
+ * to move: 0 for a draw, n &gt; 0 for a mate it gives in n plies, and -(n + 1) for a mate it gets in n plies.
+ * <p>
+ * Lookups read the mappings by absolute offset only, so the tables can be shared by any number of threads.
+ */
+public class Tablebase implements Closeable {
+	public static final int MAGIC = 0x43544231;
+	public static final int HEADER_SIZE = 8;
+
+	/**
+	 * What {@link #probe} returns for a position not in any open table
+	 */
+	public static final int NOT_FOUND = Integer.MIN_VALUE;
+	public static final int DRAW = 0;
+	public static final int MATED = -1;
+
+	/**
+	 * Either player may be the strong side; {@code values()} would clone the array on every probe
+	 */
+	private static final Player[] PLAYERS = Player.values();
+
+	private final FileChannel[] channels = new FileChannel[PieceType.values().length];
+	private final MappedByteBuffer[] tables = new MappedByteBuffer[PieceType.values().length];
+
+	/**
+	 * Opens the tables found in a directory; endings without a file are not probed
+	 * @param directory The directory the tables were written to
+	 * @throws IOException If a table is there but cannot be mapped, or is not a table
+	 */
+	public Tablebase(Path directory) throws IOException {
+		try {
+			for (PieceType type : TablebaseGenerator.PIECES) {
+				Path path = directory.resolve(fileName(type));
+				if (Files.exists(path)) {
+					open(type, path);
+				}
+			}
+		} catch (IOException e) {
+			close();
+			throw e;
+		}
+	}
+
+	private void open(PieceType type, Path path) throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		channels[type.ordinal()] = channel;
+		MappedByteBuffer table = channel.map(FileChannel.MapMode.READ_ONLY, 0L, channel.size());
+		if (table.limit() != HEADER_SIZE + TablebaseIndex.compactSize(type) || table.getInt(0) != MAGIC
+				|| table.getInt(4) != type.ordinal()) {
+			throw new IOException(path + " is not a " + fileName(type) + " table");
+		}
+		tables[type.ordinal()] = table;
+	}
+
+	/**
+	 * @param type A queen, rook or pawn
+	 * @return The name of the file of the ending of king and that piece against king, i.e. "KQK.ctb"
+	 */
+	public static String fileName(PieceType type) {
+		return "K" + Character.toUpperCase(type.newPiece(Player.White).getIdentifier()) + "K.ctb";
+	}
+
+	/**
+	 * @param type A queen, rook or pawn
+	 * @return true if the table of that ending is open
+	 */
+	public boolean has(PieceType type) {
+		return tables[type.ordinal()] != null;
+	}
+
+	/**
+	 * @param state A position
+	 * @return The value of the position for the side to move (see above), or {@link #NOT_FOUND} if it is not an
+	 * ending of an open table
+	 */
+	public int probe(GameState state) {
+		Board board = state.getBoard();
+		if (Long.bitCount(board.getOccupied()) != 3) {
+			return NOT_FOUND;
+		}
+		for (Player strong : PLAYERS) {
+			for (PieceType type : TablebaseGenerator.PIECES) {
+				long piece = board.getPieces(strong, type);
+				if (piece == 0) {
+					continue;
+				}
+				MappedByteBuffer table = tables[type.ordinal()];
+				long strongKing = board.getPieces(strong, PieceType.King);
+				long weakKing = board.getPieces(strong.opponent(), PieceType.King);
+				if (table == null || strongKing == 0 || weakKing == 0) {
+					return NOT_FOUND;
+				}
+				// The tables have White as the strong side
+				int flip = strong == Player.White ? 0 : 56;
+				int side = state.getCurrentPlayer() == strong ? 0 : 1;
+				int index = TablebaseIndex.compact(type, side, Long.numberOfTrailingZeros(strongKing) ^ flip,
+						Long.numberOfTrailingZeros(weakKing) ^ flip, Long.numberOfTrailingZeros(piece) ^ flip);
+				return table.get(HEADER_SIZE + index);
+			}
+		}
+		return NOT_FOUND;
+	}
+
+	/**
+	 * @param plies The distance to mate
+	 * @return The value of a position the side to move mates from in that many plies
+	 */
+	public static int winIn(int plies) {
+		return plies;
+	}
+
+	/**
+	 * @param plies The distance to mate
+	 * @return The value of a position the side to move is mated from in that many plies
+	 */
+	public static int lossIn(int plies) {
+		return -plies - 1;
+	}
+
+	/**
+	 * @param value A value other than a draw
+	 * @return The number of plies to mate
+	 */
+	public static int plies(int value) {
+		return value > 0 ? value : -value - 1;
+	}
+
+	/**
+	 * @param value A value from {@link #probe}
+	 * @return The value in words, i.e. "mates in 7 plies"
+	 */
+	public static String toString(int value) {
+		if (value == NOT_FOUND) {
+			return "not in the tables";
+		}
+		if (value == DRAW) {
+			return "draw";
+		}
+		return (value > 0 ? "mates in " : "is mated in ") + plies(value) + " plies";
+	}
+
+	@Override
+	public void close() throws IOException {
+		for (int i = 0; i < channels.length; i++) {
+			if (channels[i] != null) {
+				channels[i].close();
+				channels[i] = null;
+				tables[i] = null;
+			}
+		}
+	}
+}
@@ -0,0 +1,334 @@
+package chess.tablebase;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import chess.board.Attacks;
+import chess.pieces.PieceType;
+
+/**
+ * Solves an ending of king and queen, rook or pawn against king by retrograde analysis, and writes its table for
+ * {@link Tablebase}.
+ * <p>
+ * Mates are found first, then every pass adds the positions one ply further from mate: a position is won in n plies
+ * if some move reaches a position lost in n - 1, and lost in n plies if every move reaches a position won in at
+ * most n - 1.  Passes read only values of earlier passes, so the positions of a pass are split over threads without
+ * locking.  What is never resolved is a draw.
+ * <p>
+ * The moves follow the rules of the game: a pawn is never promoted, so on the last rank it just stands.
+ */
+public class TablebaseGenerator {
+	/**
+	 * Endings there are tables for
+	 */
+	public static final PieceType[] PIECES = {PieceType.Queen, PieceType.Rook, PieceType.Pawn};
+
+	private static final byte UNRESOLVED = Byte.MIN_VALUE;
+
+	/**
+	 * A move that captures the piece, leaving the kings alone: a draw
+	 */
+	private static final int CAPTURE = -1;
+
+	private static final int MAX_MOVES = 64;
+	private static final int CHUNKS_PER_THREAD = 8;
+
+	private final PieceType type;
+	private final int threads;
+	private final byte[] values = new byte[TablebaseIndex.FULL_SIZE];
+	private int passes;
+
+	/**
+	 * @param type The piece of the strong side: a queen, rook or pawn
+	 * @param threads The number of threads to generate with
+	 */
+	public TablebaseGenerator(PieceType type, int threads) {
+		if (type != PieceType.Queen && type != PieceType.Rook && type != PieceType.Pawn) {
+			throw new IllegalArgumentException("No tables for " + type);
+		}
+		this.type = type;
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Solves every position of the ending
+	 */
+	public void generate() {
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			forEachChunk(pool, new Pass() {
+				@Override
+				public int run(int start, int end) {
+					return initialize(start, end);
+				}
+			});
+			int emptyPasses = 0;
+			for (int plies = 1; emptyPasses < 2 && plies < -UNRESOLVED - 1; plies++) {
+				final int distance = plies;
+				int resolved = forEachChunk(pool, new Pass() {
+					@Override
+					public int run(int start, int end) {
+						return resolve(start, end, distance);
+					}
+				});
+				emptyPasses = resolved == 0 ? emptyPasses + 1 : 0;
+				passes = plies;
+			}
+		} finally {
+			pool.shutdown();
+		}
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] == UNRESOLVED) {
+				values[i] = Tablebase.DRAW;
+			}
+		}
+	}
+
+	/**
+	 * @return The number of passes the last {@link #generate()} took
+	 */
+	public int getPasses() {
+		return passes;
+	}
+
+	/**
+	 * @param side 0 if the strong side is to move, 1 if the lone king is
+	 * @return The value of the position as {@link Tablebase#probe} gives it, from the point of view of the side to
+	 * move; a draw for impossible positions
+	 */
+	public int getValue(int side, int strongKing, int weakKing, int piece) {
+		return values[TablebaseIndex.full(side, strongKing, weakKing, piece)];
+	}
+
+	/**
+	 * Writes the compact table to a directory, under {@link Tablebase#fileName}
+	 * @param directory The directory
+	 * @return The file written
+	 * @throws IOException If it cannot be written
+	 */
+	public Path write(Path directory) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(Tablebase.HEADER_SIZE + TablebaseIndex.compactSize(type));
+		buffer.putInt(Tablebase.MAGIC).putInt(type.ordinal());
+		for (int index = 0; index < values.length; index++) {
+			int compact = TablebaseIndex.compact(type, TablebaseIndex.side(index), TablebaseIndex.strongKing(index),
+					TablebaseIndex.weakKing(index), TablebaseIndex.piece(index));
+			buffer.put(Tablebase.HEADER_SIZE + compact, values[index]);
+		}
+		buffer.clear();
+
+		Path path = directory.resolve(Tablebase.fileName(type));
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		try {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		} finally {
+			channel.close();
+		}
+		return path;
+	}
+
+	/**
+	 * Marks impossible positions, mates and stalemates
+	 */
+	private int initialize(int start, int end) {
+		int[] children = new int[MAX_MOVES];
+		int resolved = 0;
+		for (int index = start; index < end; index++) {
+			values[index] = UNRESOLVED;
+			if (!isLegal(index)) {
+				values[index] = Tablebase.DRAW;
+			} else if (children(index, children) == 0) {
+				values[index] = (byte) (isInCheck(index) ? Tablebase.MATED : Tablebase.DRAW);
+				resolved++;
+			}
+		}
+		return resolved;
+	}
+
+	private int resolve(int start, int end, int plies) {
+		int[] children = new int[MAX_MOVES];
+		int resolved = 0;
+		for (int index = start; index < end; index++) {
+			if (values[index] != UNRESOLVED) {
+				continue;
+			}
+			int count = children(index, children);
+			if (plies % 2 == 1) {
+				// Won if a move reaches a position lost in one ply less
+				for (int i = 0; i < count; i++) {
+					if (children[i] != CAPTURE && values[children[i]] == Tablebase.lossIn(plies - 1)) {
+						values[index] = (byte) Tablebase.winIn(plies);
+						resolved++;
+						break;
+					}
+				}
+			} else {
+				// Lost if every move reaches a position already won
+				boolean lost = true;
+				for (int i = 0; i < count && lost; i++) {
+					lost = children[i] != CAPTURE && values[children[i]] != UNRESOLVED && values[children[i]] > 0;
+				}
+				if (lost) {
+					values[index] = (byte) Tablebase.lossIn(plies);
+					resolved++;
+				}
+			}
+		}
+		return resolved;
+	}
+
+	private boolean isLegal(int index) {
+		int strongKing = TablebaseIndex.strongKing(index);
+		int weakKing = TablebaseIndex.weakKing(index);
+		int piece = TablebaseIndex.piece(index);
+		if (strongKing == weakKing || strongKing == piece || weakKing == piece
+				|| (Attacks.king(strongKing) & (1L << weakKing)) != 0) {
+			return false;
+		}
+		if (type == PieceType.Pawn && piece < 8) {
+			return false;
+		}
+		// The player who just moved cannot have left the lone king in check
+		return TablebaseIndex.side(index) == 1 || !isAttackedByPiece(index);
+	}
+
+	/**
+	 * @return true if the player to move is in check; only the lone king ever can be
+	 */
+	private boolean isInCheck(int index) {
+		return TablebaseIndex.side(index) == 1 && isAttackedByPiece(index);
+	}
+
+	private boolean isAttackedByPiece(int index) {
+		int weakKing = TablebaseIndex.weakKing(index);
+		long occupied = (1L << TablebaseIndex.strongKing(index)) | (1L << weakKing) | (1L << TablebaseIndex.piece(index));
+		return (TablebaseIndex.attacks(type, TablebaseIndex.piece(index), occupied) & (1L << weakKing)) != 0;
+	}
+
+	/**
+	 * Lists the positions the legal moves lead to
+	 * @param index A legal position
+	 * @param children Receives the full index of each position reached, or {@link #CAPTURE}
+	 * @return The number of legal moves
+	 */
+	int children(int index, int[] children) {
+		int strongKing = TablebaseIndex.strongKing(index);
+		int weakKing = TablebaseIndex.weakKing(index);
+		int piece = TablebaseIndex.piece(index);
+		long strongKingBit = 1L << strongKing;
+		long weakKingBit = 1L << weakKing;
+		long pieceBit = 1L << piece;
+		long occupied = strongKingBit | weakKingBit | pieceBit;
+		int count = 0;
+
+		if (TablebaseIndex.side(index) == 0) {
+			// The strong king may go anywhere the other king does not guard; nothing else attacks it
+			long targets = Attacks.king(strongKing) & ~Attacks.king(weakKing) & ~pieceBit;
+			while (targets != 0) {
+				int to = Long.numberOfTrailingZeros(targets);
+				targets &= targets - 1;
+				children[count++] = TablebaseIndex.full(1, to, weakKing, piece);
+			}
+			if (type == PieceType.Pawn) {
+				targets = 0L;
+				if (piece < 56 && ((pieceBit << 8) & occupied) == 0) {
+					targets = pieceBit << 8;
+					if ((piece >>> 3) == 1 && ((pieceBit << 16) & occupied) == 0) {
+						targets |= pieceBit << 16;
+					}
+				}
+			} else {
+				targets = TablebaseIndex.attacks(type, piece, occupied) & ~occupied;
+			}
+			while (targets != 0) {
+				int to = Long.numberOfTrailingZeros(targets);
+				targets &= targets - 1;
+				children[count++] = TablebaseIndex.full(1, strongKing, weakKing, to);
+			}
+		} else {
+			// The lone king's own square does not block the piece's lines
+			long guarded = Attacks.king(strongKing) | TablebaseIndex.attacks(type, piece, occupied & ~weakKingBit);
+			long targets = Attacks.king(weakKing) & ~guarded & ~strongKingBit;
+			while (targets != 0) {
+				int to = Long.numberOfTrailingZeros(targets);
+				targets &= targets - 1;
+				children[count++] = to == piece ? CAPTURE : TablebaseIndex.full(0, strongKing, to, piece);
+			}
+		}
+		return count;
+	}
+
+	private int forEachChunk(ExecutorService pool, final Pass pass) {
+		int chunks = threads * CHUNKS_PER_THREAD;
+		int chunkSize = (values.length + chunks - 1) / chunks;
+		List<Future<Integer>> results = new ArrayList<Future<Integer>>(chunks);
+		for (int start = 0; start < values.length; start += chunkSize) {
+			final int from = start;
+			final int to = Math.min(values.length, start + chunkSize);
+			results.add(pool.submit(new Callable<Integer>() {
+				@Override
+				public Integer call() {
+					return pass.run(from, to);
+				}
+			}));
+		}
+		int total = 0;
+		try {
+			for (Future<Integer> result : results) {
+				total += result.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while generating", e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException("Generation failed", e.getCause());
+		}
+		return total;
+	}
+
+	/**
+	 * One pass over a range of full indices
+	 */
+	private interface Pass {
+		/**
+		 * @return The number of positions resolved
+		 */
+		int run(int start, int end);
+	}
+
+	/**
+	 * Generates the tables and writes them to a directory
+	 * @param args The directory (default the current one), then optionally the number of threads (default the core
+	 * count)
+	 * @throws IOException If a table cannot be written
+	 */
+	public static void main(String[] args) throws IOException {
+		Path directory = Paths.get(args.length > 0 ? args[0] : ".");
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		for (PieceType type : PIECES) {
+			long start = System.nanoTime();
+			TablebaseGenerator generator = new TablebaseGenerator(type, threads);
+			generator.generate();
+			Path path = generator.write(directory);
+			int longest = 0;
+			for (byte value : generator.values) {
+				longest = Math.max(longest, value);
+			}
+			System.out.println(String.format("%s: %d passes, longest win %d plies, %.1f ms on %d threads", path,
+					generator.getPasses(), longest, (System.nanoTime() - start) / 1e6, threads));
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package chess.tablebase;
+
+import chess.Player;
+import chess.board.Attacks;
+import chess.pieces.PieceType;
+
+/**
+ * Positions of a king and one piece against a lone king, numbered for the tables.  The side with the piece is
+ * called strong and is taken to be White; a position where Black has the piece is flipped top to bottom first.
+ * <p>
+ * The full index, used while generating, is ((side * 64 + strong king) * 64 + weak king) * 64 + piece, with side 0
+ * when the strong side is to move.  Files hold a compact index instead, which uses the symmetries of the board to
+ * keep only positions with the strong king in the a1-d1-d4 triangle, or on the a-d files when the piece is a pawn.
+ */
+final class TablebaseIndex {
+	static final int FULL_SIZE = 2 * 64 * 64 * 64;
+
+	/**
+	 * The number of each square of the a1-d1-d4 triangle, -1 for the others
+	 */
+	private static final int[] TRIANGLE = new int[64];
+	static {
+		int number = 0;
+		for (int square = 0; square < 64; square++) {
+			int file = square & 7;
+			int rank = square >>> 3;
+			TRIANGLE[square] = (file <= 3 && rank <= file) ? number++ : -1;
+		}
+	}
+
+	private TablebaseIndex() {
+	}
+
+	static int full(int side, int strongKing, int weakKing, int piece) {
+		return ((side * 64 + strongKing) * 64 + weakKing) * 64 + piece;
+	}
+
+	static int side(int index) {
+		return index >>> 18;
+	}
+
+	static int strongKing(int index) {
+		return (index >>> 12) & 63;
+	}
+
+	static int weakKing(int index) {
+		return (index >>> 6) & 63;
+	}
+
+	static int piece(int index) {
+		return index & 63;
+	}
+
+	/**
+	 * @param type The piece of the strong side
+	 * @return The number of entries of a file
+	 */
+	static int compactSize(PieceType type) {
+		return 2 * (type == PieceType.Pawn ? 32 : 10) * 64 * 64;
+	}
+
+	/**
+	 * @param type The piece of the strong side
+	 * @return The compact index of the same position, or one of its mirror images
+	 */
+	static int compact(PieceType type, int side, int strongKing, int weakKing, int piece) {
+		if ((strongKing & 7) > 3) {
+			strongKing ^= 7;
+			weakKing ^= 7;
+			piece ^= 7;
+		}
+		if (type == PieceType.Pawn) {
+			int kingNumber = (strongKing >>> 3) * 4 + (strongKing & 7);
+			return ((side * 32 + kingNumber) * 64 + weakKing) * 64 + piece;
+		}
+		if ((strongKing >>> 3) > 3) {
+			strongKing ^= 56;
+			weakKing ^= 56;
+			piece ^= 56;
+		}
+		if ((strongKing >>> 3) > (strongKing & 7)) {
+			strongKing = transpose(strongKing);
+			weakKing = transpose(weakKing);
+			piece = transpose(piece);
+		}
+		return ((side * 10 + TRIANGLE[strongKing]) * 64 + weakKing) * 64 + piece;
+	}
+
+	/**
+	 * Mirrors a square in the a1-h8 diagonal
+	 */
+	private static int transpose(int square) {
+		return ((square & 7) << 3) | (square >>> 3);
+	}
+
+	/**
+	 * @return The squares the strong piece attacks
+	 */
+	static long attacks(PieceType type, int piece, long occupied) {
+		switch (type) {
+			case Queen:
+				return Attacks.queen(piece, occupied);
+			case Rook:
+				return Attacks.rook(piece, occupied);
+			default:
+				return Attacks.pawn(Player.White, piece);
+		}
+	}
+}
@@ -1,11 +1,16 @@
 package chess;
 
+import chess.board.Zobrist;
 import chess.pieces.King;
 import chess.pieces.Knight;
 import chess.pieces.Pawn;
 import chess.pieces.Piece;
 import chess.pieces.Queen;
 import chess.pieces.Rook;
+import chess.pieces.move.Move;
+import chess.pieces.move.MoveList;
+
+import java.util.List;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -54,6 +59,121 @@ public class GameStateTest {
         assertEquals("The queen at d8 should be owned by Black", Player.Black, blackQueen.getOwner());
     }
     
+    @Test
+    public void testGenerateMoves() {
+        state.reset();
+        MoveList moves = new MoveList();
+        assertEquals("White has 20 opening moves", 20, state.generateMoves(moves));
+        assertEquals(20, moves.size());
+        assertTrue(moves.contains(Move.create(Position.of("e2").index(), Position.of("e4").index(), 0)));
+
+        // Moves are appended after whatever the list holds
+        assertTrue(state.movePiece("e2", "e4"));
+        assertTrue(state.movePiece("d7", "d5"));
+        assertEquals(31, state.generateMoves(moves));
+        assertEquals(51, moves.size());
+        int capture = Move.create(Position.of("e4").index(), Position.of("d5").index(), Move.CAPTURE);
+        assertTrue("The capture should be flagged", moves.contains(capture));
+
+        // The legacy map holds the same moves
+        int count = 0;
+        for (List<Position> targets : state.getCurrentPossibleMoves().values()) {
+            count += targets.size();
+        }
+        assertEquals(31, count);
+
+        // movePiece records the move as generated, flags included
+        assertTrue(state.movePiece("e4", "d5"));
+        assertEquals(capture, state.getMove(2));
+        assertEquals(Position.of("d7").index(), Move.from(state.getMove(1)));
+        assertFalse(Move.isCapture(state.getMove(1)));
+    }
+
+    @Test
+    public void testMakeUnmakeMove() {
+        state.reset();
+        long occupied = state.getBoard().getOccupied();
+        String[][] moves = {{"e2", "e4"}, {"d7", "d5"}, {"e4", "d5"}, {"d8", "d5"}, {"e1", "e2"}, {"d5", "e5"}};
+        for (String[] move : moves) {
+            state.makeMove(Move.create(Position.of(move[0]).index(), Position.of(move[1]).index(), 0));
+        }
+        assertEquals(Player.White, state.getCurrentPlayer());
+        assertEquals(6, state.getMoveCount());
+        assertTrue(state.getPieceAt("e5") instanceof Queen);
+        assertTrue(state.getPieceAt("e2") instanceof King);
+
+        // Capturing the king ends the game, and taking it back resumes it
+        state.makeMove(Move.create(Position.of("e2").index(), Position.of("e1").index(), 0));
+        state.makeMove(Move.create(Position.of("e5").index(), Position.of("e1").index(), Move.CAPTURE));
+        assertTrue(state.isOver());
+        state.unmakeMove();
+        assertFalse(state.isOver());
+        assertTrue(state.getPieceAt("e1") instanceof King);
+        state.unmakeMove();
+
+        for (int i = 0; i < moves.length; i++) {
+            state.unmakeMove();
+        }
+        assertEquals(Player.White, state.getCurrentPlayer());
+        assertEquals(0, state.getMoveCount());
+        assertEquals(occupied, state.getBoard().getOccupied());
+        assertTrue(state.getPieceAt("d7") instanceof Pawn);
+        assertEquals(Player.Black, state.getPieceAt("d7").getOwner());
+        assertTrue(state.getPieceAt("d8") instanceof Queen);
+        assertTrue(state.getPieceAt("e1") instanceof King);
+        assertTrue("The original moves should work again", state.movePiece("e2", "e4"));
+
+        // The undo stack grows past its initial size
+        int knightOut = Move.create(Position.of("g8").index(), Position.of("f6").index(), 0);
+        int knightBack = Move.create(Position.of("f6").index(), Position.of("g8").index(), 0);
+        int whiteOut = Move.create(Position.of("g1").index(), Position.of("f3").index(), 0);
+        int whiteBack = Move.create(Position.of("f3").index(), Position.of("g1").index(), 0);
+        for (int i = 0; i < 300; i++) {
+            state.makeMove(knightOut);
+            state.makeMove(whiteOut);
+            state.makeMove(knightBack);
+            state.makeMove(whiteBack);
+        }
+        for (int i = 0; i < 1200; i++) {
+            state.unmakeMove();
+        }
+        assertEquals(1, state.getMoveCount());
+        assertEquals(Player.Black, state.getCurrentPlayer());
+    }
+
+    @Test
+    public void testHashKey() {
+        assertEquals("An empty board with White to move hashes to zero", 0L, state.hashKey());
+        state.reset();
+        long start = state.hashKey();
+        assertEquals(Zobrist.hash(state.getBoard(), Player.White), start);
+
+        // Knights out and back again reach the same position
+        assertTrue(state.movePiece("g1", "f3"));
+        long afterOneMove = state.hashKey();
+        assertFalse(start == afterOneMove);
+        assertEquals(Zobrist.hash(state.getBoard(), Player.Black), afterOneMove);
+        assertTrue(state.movePiece("g8", "f6"));
+        assertTrue(state.movePiece("f3", "g1"));
+        assertTrue(state.movePiece("f6", "g8"));
+        assertEquals(start, state.hashKey());
+
+        // A capture, and taking it back
+        assertTrue(state.movePiece("e2", "e4"));
+        assertTrue(state.movePiece("d7", "d5"));
+        long beforeCapture = state.hashKey();
+        state.makeMove(Move.create(Position.of("e4").index(), Position.of("d5").index(), Move.CAPTURE));
+        assertEquals(Zobrist.hash(state.getBoard(), Player.Black), state.hashKey());
+        state.unmakeMove();
+        assertEquals(beforeCapture, state.hashKey());
+
+        // The same pieces with the other player to move hash differently
+        assertEquals(beforeCapture ^ Zobrist.side(), Zobrist.hash(state.getBoard(), Player.Black));
+
+        state.reset();
+        assertEquals(start, state.hashKey());
+    }
+
     @Test
     public void testFoolsMate() {
     	state.reset();
@@ -113,6 +233,141 @@ public class GameStateTest {
 
     }
 
+    @Test
+    public void testLegalMoves() {
+    	TestableGameState testState = new TestableGameState();
+
+    	// A pinned rook can only move along the pin
+    	testState.placePiece(new King(Player.White), new Position("e1"));
+    	testState.placePiece(new Rook(Player.White), new Position("e2"));
+    	testState.placePiece(new King(Player.Black), new Position("a8"));
+    	testState.placePiece(new Rook(Player.Black), new Position("e8"));
+    	List<Position> rookMoves = testState.getCurrentPossibleMoves().get(new Position("e2"));
+    	assertEquals(6, rookMoves.size());
+    	assertTrue(rookMoves.contains(new Position("e8")));
+    	assertFalse(rookMoves.contains(new Position("d2")));
+
+    	// Checked along the file, the king cannot step back along it
+    	testState.clearBoard();
+    	testState.placePiece(new King(Player.White), new Position("e2"));
+    	testState.placePiece(new King(Player.Black), new Position("a8"));
+    	testState.placePiece(new Rook(Player.Black), new Position("e8"));
+    	assertTrue(testState.isInCheck(Player.White));
+    	assertFalse(testState.getCurrentPossibleMoves().get(new Position("e2")).contains(new Position("e1")));
+
+    	// In double check only the king moves, even though the queen could take a checker
+    	testState.placePiece(new Knight(Player.Black), new Position("d4"));
+    	testState.placePiece(new Queen(Player.White), new Position("d1"));
+    	assertEquals(1, testState.getCurrentPossibleMoves().size());
+    	assertNotNull(testState.getCurrentPossibleMoves().get(new Position("e2")));
+
+    	// No legal move without being in check is a stalemate, and ends the game
+    	testState.clearBoard();
+    	testState.placePiece(new King(Player.White), new Position("c1"));
+    	testState.placePiece(new Queen(Player.White), new Position("b5"));
+    	testState.placePiece(new King(Player.Black), new Position("a8"));
+    	assertTrue(testState.movePiece("b5", "b6"));
+    	assertTrue(testState.isOver());
+    	assertTrue(testState.isStalemate());
+    	assertTrue(testState.getCurrentPossibleMoves().isEmpty());
+
+    	// movePiece only makes legal moves: the rook checks the king, and stepping the pawn does not answer it
+    	GameState pinned = GameState.fromFen("4k3/8/8/8/8/8/P7/r3K3 w - - 0 1");
+    	assertFalse(pinned.movePiece("a2", "a3"));
+    	assertEquals(0, pinned.getMoveCount());
+    	assertTrue(pinned.movePiece("e1", "e2"));
+    }
+
+    @Test
+    public void testAttackMaps() {
+        state.reset();
+        assertTrue(state.isSquareAttacked(new Position("f3"), Player.White));
+        assertFalse(state.isSquareAttacked(new Position("e4"), Player.White));
+        assertEquals("The knight and two pawns guard f3", 3, Long.bitCount(state.attackersOf(new Position("f3"))));
+
+        // Walk down a line of first moves and back, checking the maps against a scan of the board at every step
+        MoveList moves = new MoveList();
+        for (int ply = 0; ply < 40 && state.generateMoves(moves) > 0; ply++) {
+            state.makeMove(moves.get((ply * 7) % moves.size()));
+            moves.clear();
+            checkAttackMaps(state);
+        }
+        while (state.getMoveCount() > 0) {
+            state.unmakeMove();
+            checkAttackMaps(state);
+        }
+    }
+
+    private void checkAttackMaps(GameState state) {
+        for (int square = 0; square < Position.SQUARE_COUNT; square++) {
+            Position position = Position.of(square);
+            long attackers = state.attackersOf(position);
+            for (Player player : Player.values()) {
+                boolean attacked = (attackers & state.getBoard().getOccupied(player)) != 0;
+                assertEquals(position + " attacked by " + player, attacked, state.isSquareAttacked(position, player));
+            }
+        }
+    }
+
+    @Test
+    public void testFen() {
+        state.reset();
+        String initial = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1";
+        assertEquals(initial, state.toFen());
+        long hash = state.hashKey();
+        assertEquals("Loading should give the same hash as setting up", hash, GameState.fromFen(initial).hashKey());
+
+        assertTrue(state.movePiece("e2", "e4"));
+        assertTrue(state.movePiece("g8", "f6"));
+        assertTrue(state.movePiece("g1", "f3"));
+        String fen = "rnbqkb1r/pppppppp/5n2/8/4P3/5N2/PPPP1PPP/RNBQKB1R b - - 2 2";
+        assertEquals(fen, state.toFen());
+        GameState loaded = GameState.fromFen(fen);
+        assertEquals(fen, loaded.toFen());
+        assertEquals(state.hashKey(), loaded.hashKey());
+        assertEquals(state.getEvaluation().score(Player.White), loaded.getEvaluation().score(Player.White));
+        state.unmakeMove();
+        state.unmakeMove();
+        assertEquals("Taking back restores the counters", "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b - - 0 1",
+                state.toFen());
+
+        // Castling and en passant fields are accepted but dropped, counters may be left out as in EPD
+        loaded.loadFen("r3k2r/8/8/3pP3/8/8/8/R3K2R w KQkq d6 0 1");
+        assertEquals("r3k2r/8/8/3pP3/8/8/8/R3K2R w - - 0 1", loaded.toFen());
+        loaded.loadFen("4k3/8/8/8/8/8/4P3/4K3 b - - bm Kd7; id \"test\";");
+        assertEquals("4k3/8/8/8/8/8/4P3/4K3 b - - 0 1", loaded.toFen());
+        assertEquals(0, loaded.getMoveCount());
+
+        loaded.loadFen("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1");
+        assertTrue("Loading a stalemate ends the game", loaded.isOver());
+        loaded.loadFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        loaded.makeMove(Move.create(Position.of("a1").index(), Position.of("a8").index(), 0));
+        assertFalse("makeMove does not look for the mate it gives", loaded.isOver());
+        loaded.unmakeMove();
+        assertFalse(loaded.isOver());
+        loaded.loadFen("P3k3/8/8/8/8/8/8/4K3 b - - 0 1");
+        assertEquals("Without promotion a pawn may stand on the last rank", "P3k3/8/8/8/8/8/8/4K3 b - - 0 1",
+                loaded.toFen());
+
+        for (String invalid : new String[] {"", "8/8/8/8/8/8/8 w - - 0 1", "9/8/8/8/8/8/8/8 w - - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNX w - - 0 1", "4k3/8/8/8/8/8/8/4K3 x - - 0 1",
+                "K3k3/8/8/8/8/8/8/4K3 w - - 0 1", "4k3/8/8/8/8/8/8/8 w - - 0 1", "4k3/8/8/8/8/8/8/3PK3 w - - 0 1",
+                "3pk3/8/8/8/8/8/8/4K3 w - - 0 1"}) {
+            try {
+                GameState.fromFen(invalid);
+                fail("Should not load '" + invalid + "'");
+            } catch (IllegalArgumentException e) {
+                // Expected
+            }
+        }
+        try {
+            loaded.loadFen("K3k3/8/8/8/8/8/8/4K3 w - - 0 1");
+            fail("Two white kings");
+        } catch (IllegalArgumentException e) {
+            assertEquals("A failed load leaves the board cleared", 0L, loaded.getBoard().getOccupied());
+        }
+    }
+
     @Test
     public void testManualCheckMate() {
     	TestableGameState testState = new TestableGameState();
@@ -128,8 +383,8 @@ public class GameStateTest {
     	testState.placePiece(new King(Player.Black), new Position("d8"));
     	testState.placePiece(new Rook(Player.Black), new Position("e8"));
     	testState.placePiece(new Queen(Player.Black), new Position("e7"));
-    	assertTrue(testState.movePiece("a2", "a4"));
-    	assertFalse(testState.isOver());
+    	// The queen already checks the king, so White has no waiting move; Black moves first
+    	testState.currentPlayer = Player.Black;
     	assertTrue(testState.movePiece("e7", "h4"));
     	assertTrue(testState.isOver());
 
@@ -146,8 +401,8 @@ public class GameStateTest {
     	testState.placePiece(new King(Player.Black), new Position("d8"));
     	testState.placePiece(new Rook(Player.Black), new Position("e8"));
     	testState.placePiece(new Queen(Player.Black), new Position("e7"));
-    	assertTrue(testState.movePiece("a2", "a4"));
-    	assertFalse(testState.isOver());
+    	// The queen already checks the king, so White has no waiting move; Black moves first
+    	testState.currentPlayer = Player.Black;
     	assertTrue(testState.movePiece("e7", "h4"));
     	assertTrue(testState.isOver());
 
@@ -198,8 +453,8 @@ public class GameStateTest {
     	testState.placePiece(new King(Player.Black), new Position("d8"));
     	testState.placePiece(new Pawn(Player.Black), new Position("f3"));
     	testState.placePiece(new Rook(Player.Black), new Position("e8"));
-    	assertTrue(testState.movePiece("a2", "a4"));
-    	assertFalse(testState.isOver());
+    	// The rook already checks the king, so White has no waiting move; Black moves first
+    	testState.currentPlayer = Player.Black;
     	assertTrue(testState.movePiece("f3", "f2"));
     	assertFalse(testState.isOver());
 
@@ -241,7 +496,8 @@ public class GameStateTest {
     	// Knight attack
     	testState.clearBoard();
     	testState.whiteKingPos = new Position("e1");
-    	testState.blackKingPos = new Position("d8");
+    	// Off the d-file, which the rooks hold
+    	testState.blackKingPos = new Position("a8");
     	testState.placePiece(new King(Player.White), new Position("e1"));
     	testState.placePiece(new Rook(Player.White), new Position("e2"));
     	testState.placePiece(new Rook(Player.White), new Position("d1"));
@@ -249,7 +505,7 @@ public class GameStateTest {
     	testState.placePiece(new Pawn(Player.White), new Position("f2"));
     	testState.placePiece(new Pawn(Player.White), new Position("f1"));
     	testState.placePiece(new Pawn(Player.White), new Position("a2"));
-    	testState.placePiece(new King(Player.Black), new Position("d8"));
+    	testState.placePiece(new King(Player.Black), new Position("a8"));
     	testState.placePiece(new Knight(Player.Black), new Position("h4"));
     	assertTrue(testState.movePiece("a2", "a4"));
     	assertFalse(testState.isOver());
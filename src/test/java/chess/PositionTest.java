@@ -24,4 +24,18 @@ public class PositionTest {
 
         assertEquals("The positions should equal each other", one, other);
     }
+
+    @Test
+    public void testSharedPositions() {
+        Position pos = Position.of('d', 5);
+
+        assertSame("Lookups should return the same instance", pos, Position.of("d5"));
+        assertSame("Lookups should return the same instance", pos, Position.of(pos.index()));
+        assertEquals("The parsed position should equal the shared one", new Position("d5"), pos);
+        assertEquals("a1 should be the first square", 0, Position.of("a1").index());
+        assertEquals("h8 should be the last square", 63, Position.of("h8").index());
+        assertNull("Squares off the board have no position", Position.of('i', 1));
+        assertNull("Squares off the board have no position", Position.of('a', 0));
+        assertEquals("Squares off the board have no index", -1, new Position('a', 9).index());
+    }
 }
@@ -1,7 +1,5 @@
 package chess;
 
-import java.util.HashMap;
-
 import chess.pieces.Piece;
 
 /**
@@ -13,14 +11,14 @@ import chess.pieces.Piece;
 public class TestableGameState extends GameState {
 
 	public void removePiece(Position position) {
-		positionToPieceMap.remove(position);
+		removeAtPosition(position);
 	}
 	
 	public void clearBoard() {
-		positionToPieceMap = new HashMap<Position, Piece>();
+		super.clearBoard();
 	}
 	
 	public void placePiece(Piece piece, Position position) {
-		positionToPieceMap.put(position, piece);
+		super.placePiece(piece, position);
 	}
 }
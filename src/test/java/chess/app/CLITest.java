@@ -50,7 +50,7 @@ public class CLITest {
         runCliWithInput("help");
 
         List<String> output = captureOutput();
-        assertEquals("Should have 13 output calls", 13, output.size());
+        assertEquals("Should have 21 output calls", 21, output.size());
     }
 
     @Test
@@ -72,6 +72,46 @@ public class CLITest {
         assertEquals("It should have printed the board three times", output.get(2), output.get(4));
     }
 
+    @Test
+    public void testPerftCommand() throws Exception {
+        runCliWithInput("perft 2");
+        List<String> output = captureOutput();
+
+        assertEquals("Should have printed 20 first moves and 2 totals", 28, output.size());
+        assertEquals("Nodes: 400", output.get(24));
+    }
+
+    @Test
+    public void testGoCommand() throws Exception {
+        runCliWithInput("go depth 2");
+        List<String> output = captureOutput();
+
+        assertTrue("It should report each depth", output.get(4).startsWith("depth 1 score cp "));
+        assertTrue(output.get(5).startsWith("depth 2 "));
+        assertTrue(output.get(6).startsWith("Best move: "));
+        assertEquals("Black should be to move", "Black's Move", output.get(8));
+    }
+
+    @Test
+    public void testSetOptionCommand() throws Exception {
+        runCliWithInput("setoption threads 3", "go depth 3");
+        List<String> output = captureOutput();
+
+        assertEquals("Searching with 3 threads.", output.get(4));
+        assertTrue(output.get(10).startsWith("Best move: "));
+    }
+
+    @Test
+    public void testFenCommands() throws Exception {
+        runCliWithInput("fen 4k3/8/8/8/8/8/4P3/4K3 b - - 0 1", "showfen", "fen nonsense", "showfen");
+        List<String> output = captureOutput();
+
+        assertEquals("Black should be to move", "Black's Move", output.get(5));
+        assertEquals("4k3/8/8/8/8/8/4P3/4K3 b - - 0 1", output.get(6));
+        assertEquals("Invalid FEN: nonsense", output.get(9));
+        assertEquals("The position should be kept", output.get(6), output.get(12));
+    }
+
     private List<String> captureOutput() {
         ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
 
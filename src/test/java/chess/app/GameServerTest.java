@@ -0,0 +1,172 @@
+package chess.app;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static junit.framework.Assert.*;
+
+/**
+ * Unit tests for the GameServer, SessionRegistry and LoadGenerator
+ */
+public class GameServerTest {
+
+    private GameServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new GameServer(0, 4);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.close();
+    }
+
+    @Test
+    public void testPlayOverSocket() throws Exception {
+        Client white = new Client();
+        Client black = new Client();
+        try {
+            assertEquals("error No game. Start one with 'new' or 'join <id>'.", white.request("list").get(0));
+            String id = white.request("new").get(0).substring("ok ".length());
+            assertEquals("ok", white.request("move e2 e4").get(0));
+
+            assertEquals("error No such game.", black.request("join 999").get(0));
+            assertEquals("ok " + id, black.request("join " + id).get(0));
+            List<String> moves = black.request("list");
+            assertEquals("Black can answer e4 in 20 ways", 21, moves.size());
+            assertTrue(moves.contains("e7 e5"));
+            assertEquals("ok 20", moves.get(20));
+            assertEquals("error Illegal move!", black.request("move e2 e4").get(0));
+            assertEquals("ok", black.request("move e7 e5").get(0));
+
+            List<String> board = white.request("board");
+            assertEquals("ok White's Move", board.get(board.size() - 1));
+            assertTrue(board.contains("4 |   |   |   |   | p |   |   |   | 4"));
+            assertEquals(1, server.getSessionCount());
+
+            // Both let go, so the game is dropped
+            assertNotNull(white.request("new").get(0));
+            assertEquals("ok", black.request("quit").get(0));
+            waitForSessions(1);
+        } finally {
+            white.close();
+            black.close();
+        }
+        waitForSessions(0);
+    }
+
+    @Test
+    public void testFoolsMate() throws Exception {
+        Client client = new Client();
+        try {
+            client.request("new");
+            client.request("move f2 f3");
+            client.request("move e7 e5");
+            client.request("move g2 g4");
+            assertEquals("ok The game is over. Congrats to Black.", client.request("move d8 h4").get(0));
+            assertEquals("ok 0", client.request("list").get(0));
+            assertEquals("error The game was over.", client.request("move a2 a3").get(0));
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testMoveLeavingKingInCheckRefused() throws Exception {
+        Client client = new Client();
+        try {
+            client.request("new");
+            client.request("move e2 e4");
+            client.request("move e7 e5");
+            client.request("move d2 d4");
+            assertEquals("ok", client.request("move f8 b4").get(0));
+            assertEquals("The bishop checks the king", "error Illegal move!", client.request("move a2 a3").get(0));
+            assertEquals("ok", client.request("move c2 c3").get(0));
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testSessionRegistry() {
+        SessionRegistry registry = new SessionRegistry(5);
+        assertEquals(8, registry.getShardCount());
+        List<SessionRegistry.Session> sessions = new ArrayList<SessionRegistry.Session>();
+        for (int i = 0; i < 100; i++) {
+            sessions.add(registry.create());
+        }
+        assertEquals(100, registry.size());
+        SessionRegistry.Session first = sessions.get(0);
+        assertSame(first, registry.join(first.getId()));
+        registry.release(first);
+        assertEquals("Still held by its creator", 100, registry.size());
+        for (SessionRegistry.Session session : sessions) {
+            registry.release(session);
+        }
+        assertEquals(0, registry.size());
+        assertNull(registry.join(first.getId()));
+    }
+
+    @Test
+    public void testLoadGenerator() throws IOException {
+        LoadGenerator.Result result = new LoadGenerator(server.getPort(), 8).run(300);
+        assertEquals(8, result.getSessions());
+        assertTrue(result.getMoves() > 0);
+        assertTrue(result.getLatency(50) <= result.getLatency(99));
+        assertTrue(result.getLatency(99) > 0);
+    }
+
+    private void waitForSessions(int count) throws InterruptedException {
+        for (int i = 0; i < 200 && server.getSessionCount() != count; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, server.getSessionCount());
+    }
+
+    /**
+     * One connection to the server
+     */
+    private class Client {
+        private final Socket socket;
+        private final BufferedReader in;
+        private final PrintStream out;
+
+        Client() throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+            out = new PrintStream(socket.getOutputStream(), true, "UTF-8");
+        }
+
+        /**
+         * @return The lines of the answer, the "ok" or "error" line last
+         */
+        List<String> request(String command) throws IOException {
+            out.print(command + "\n");
+            out.flush();
+            List<String> lines = new ArrayList<String>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                lines.add(line);
+                if (line.startsWith("ok") || line.startsWith("error")) {
+                    break;
+                }
+            }
+            return lines;
+        }
+
+        void close() throws IOException {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package chess.app;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import chess.GameState;
+
+import static junit.framework.Assert.*;
+
+/**
+ * Unit tests for the Uci
+ */
+public class UciTest {
+
+    @Test
+    public void testHandshake() {
+        List<String> output = run("uci", "isready", "nonsense");
+        assertTrue(output.get(0).startsWith("id name "));
+        assertTrue(output.contains("option name Threads type spin default 1 min 1 max 64"));
+        assertEquals("uciok", output.get(output.size() - 3));
+        assertEquals("readyok", output.get(output.size() - 2));
+        assertEquals("info string Unknown command: nonsense", output.get(output.size() - 1));
+    }
+
+    @Test
+    public void testPositionIsAppliedIncrementally() {
+        Uci uci = new Uci(new ByteArrayInputStream(new byte[0]), new PrintStream(new ByteArrayOutputStream()));
+        execute(uci, "position startpos moves e2e4 e7e5");
+        assertEquals(2L, uci.getMovesPlayed());
+        execute(uci, "position startpos moves e2e4 e7e5 g1f3 b8c6");
+        assertEquals("Only the new moves are played", 4L, uci.getMovesPlayed());
+        assertEquals("r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w - - 2 3", uci.getGameState().toFen());
+
+        // A different line takes back what it does not share
+        execute(uci, "position startpos moves e2e4 c7c5");
+        assertEquals(5L, uci.getMovesPlayed());
+        assertEquals(2, uci.getGameState().getMoveCount());
+        GameState expected = new GameState();
+        expected.reset();
+        expected.movePiece("e2", "e4");
+        expected.movePiece("c7", "c5");
+        assertEquals(expected.toFen(), uci.getGameState().toFen());
+        assertEquals(expected.hashKey(), uci.getGameState().hashKey());
+
+        execute(uci, "position fen 4k3/8/8/8/8/8/4P3/4K3 w - - 0 1 moves e2e4");
+        assertEquals("4k3/8/8/8/4P3/8/8/4K3 b - - 0 1", uci.getGameState().toFen());
+        execute(uci, "position fen 4k3/8/8/8/8/8/4P3/4K3 w - - 0 1 moves e2e4 e8d7");
+        assertEquals(7L, uci.getMovesPlayed());
+        execute(uci, "position startpos");
+        assertEquals(0, uci.getGameState().getMoveCount());
+    }
+
+    @Test
+    public void testIllegalMovesAreReported() {
+        List<String> output = run("position startpos moves e2e5", "position fen nonsense");
+        assertEquals("info string Illegal move e2e5", output.get(0));
+        assertTrue(output.get(1).startsWith("info string Invalid FEN"));
+
+        Uci uci = new Uci(new ByteArrayInputStream(new byte[0]), new PrintStream(new ByteArrayOutputStream()));
+        execute(uci, "position fen nonsense moves e2e4");
+        assertEquals("The moves are not played on another position", 0L, uci.getMovesPlayed());
+        assertEquals(0, uci.getGameState().getMoveCount());
+    }
+
+    @Test
+    public void testGo() {
+        List<String> output = run("position fen 6k1/8/6K1/8/8/8/8/R7 w - - 0 1", "go depth 3");
+        assertEquals("bestmove a1a8", output.get(output.size() - 1));
+        assertTrue(output.get(0).startsWith("info depth 1 score mate 1 "));
+        assertTrue(output.get(0).endsWith(" pv a1a8"));
+
+        output = run("position fen 6k1/8/6K1/8/8/8/8/R7 w - - 0 1 moves a1a8", "go wtime 1000 btime 1000");
+        assertEquals("Checkmated", "bestmove 0000", output.get(output.size() - 1));
+
+        output = run("position startpos", "go infinite", "isready", "stop");
+        assertTrue(output.contains("readyok"));
+        assertTrue(output.get(output.size() - 1).startsWith("bestmove "));
+    }
+
+    private static void execute(Uci uci, String command) {
+        assertTrue(command, uci.execute(command));
+    }
+
+    private static List<String> run(String... commands) {
+        StringBuilder input = new StringBuilder();
+        for (String command : commands) {
+            input.append(command).append('\n');
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new Uci(new ByteArrayInputStream(input.toString().getBytes()), new PrintStream(bytes, true)).run();
+        return Arrays.asList(bytes.toString().split("\\r?\\n"));
+    }
+}
@@ -0,0 +1,92 @@
+package chess.board;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import chess.Player;
+import chess.Position;
+import static junit.framework.Assert.*;
+
+/**
+ * Checks of the precomputed attack tables
+ */
+public class AttacksTest {
+
+    @Test
+    public void testLeaperAttacks() {
+        assertEquals("A knight in the corner has two targets", mask("b3", "c2"), Attacks.knight(square("a1")));
+        assertEquals(8, Long.bitCount(Attacks.knight(square("d4"))));
+        assertEquals("A king in the corner has three targets", mask("g8", "g7", "h7"), Attacks.king(square("h8")));
+        assertEquals(8, Long.bitCount(Attacks.king(square("e4"))));
+    }
+
+    @Test
+    public void testPawnAttacks() {
+        assertEquals(mask("d5", "f5"), Attacks.pawn(Player.White, square("e4")));
+        assertEquals(mask("d3", "f3"), Attacks.pawn(Player.Black, square("e4")));
+        assertEquals("Edge pawns only attack inwards", mask("b3"), Attacks.pawn(Player.White, square("a2")));
+        assertEquals("Nothing is in front of the last row", 0L, Attacks.pawn(Player.White, square("c8")));
+    }
+
+    @Test
+    public void testSlidingAttacks() {
+        long occupied = mask("d6", "b4", "f2", "g4");
+        assertEquals(mask("d5", "d6", "c4", "b4", "e4", "f4", "g4", "d3", "d2", "d1"), Attacks.rook(square("d4"), occupied));
+        assertEquals(mask("c5", "b6", "a7", "e5", "f6", "g7", "h8", "c3", "b2", "a1", "e3", "f2"),
+                Attacks.bishop(square("d4"), occupied));
+        assertEquals(Attacks.rook(square("d4"), occupied) | Attacks.bishop(square("d4"), occupied),
+                Attacks.queen(square("d4"), occupied));
+    }
+
+    @Test
+    public void testSlidingAttacksMatchRayWalk() {
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            long occupied = random.nextLong() & random.nextLong();
+            int square = random.nextInt(64);
+            assertEquals(walk(square, occupied, new int[][] {{0, 1}, {1, 0}, {0, -1}, {-1, 0}}),
+                    Attacks.rook(square, occupied));
+            assertEquals(walk(square, occupied, new int[][] {{1, 1}, {1, -1}, {-1, -1}, {-1, 1}}),
+                    Attacks.bishop(square, occupied));
+        }
+    }
+
+    @Test
+    public void testBetween() {
+        assertEquals(mask("b1", "c1", "d1"), Attacks.between(square("a1"), square("e1")));
+        assertEquals(mask("f7", "g6"), Attacks.between(square("e8"), square("h5")));
+        assertEquals("Neighbours have nothing between them", 0L, Attacks.between(square("e4"), square("e5")));
+        assertEquals("Squares off a line have nothing between them", 0L, Attacks.between(square("a1"), square("b3")));
+    }
+
+    private long walk(int square, long occupied, int[][] directions) {
+        long mask = 0L;
+        for (int[] direction : directions) {
+            char col = (char) ('a' + (square & 7) + direction[0]);
+            int row = (square >>> 3) + 1 + direction[1];
+            while (Position.isOnBoard(col, row)) {
+                long bit = 1L << Position.of(col, row).index();
+                mask |= bit;
+                if ((occupied & bit) != 0) {
+                    break;
+                }
+                col += direction[0];
+                row += direction[1];
+            }
+        }
+        return mask;
+    }
+
+    private int square(String colrow) {
+        return Position.of(colrow).index();
+    }
+
+    private long mask(String... colrows) {
+        long mask = 0L;
+        for (String colrow : colrows) {
+            mask |= 1L << square(colrow);
+        }
+        return mask;
+    }
+}
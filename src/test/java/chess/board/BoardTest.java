@@ -0,0 +1,69 @@
+package chess.board;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import chess.GameState;
+import chess.Player;
+import chess.Position;
+import chess.pieces.Knight;
+import chess.pieces.Pawn;
+import chess.pieces.PieceType;
+import chess.pieces.Rook;
+import static junit.framework.Assert.*;
+
+/**
+ * Checks that both board representations agree with each other
+ */
+public class BoardTest {
+
+    @Test
+    public void testMasks() {
+        checkMasks(new MapBoard());
+        checkMasks(new BitBoard());
+    }
+
+    @Test
+    public void testSameMovesOnBothBoards() {
+        GameState mapState = new GameState(new MapBoard());
+        GameState bitState = new GameState(new BitBoard());
+        mapState.reset();
+        bitState.reset();
+
+        String[][] moves = {{"e2", "e4"}, {"d7", "d5"}, {"e4", "d5"}, {"d8", "d5"}, {"b1", "c3"}, {"d5", "a5"}};
+        for (String[] move : moves) {
+            assertEquals(mapState.getCurrentPossibleMoves(), bitState.getCurrentPossibleMoves());
+            assertTrue(mapState.movePiece(move[0], move[1]));
+            assertTrue(bitState.movePiece(move[0], move[1]));
+        }
+
+        Map<Position, List<Position>> bitMoves = bitState.getCurrentPossibleMoves();
+        assertEquals(mapState.getCurrentPossibleMoves(), bitMoves);
+        assertEquals(bitState.getBoard().getOccupied(), mapState.getBoard().getOccupied());
+    }
+
+    private void checkMasks(Board board) {
+        board.placePiece(new Rook(Player.White), new Position("a1"));
+        board.placePiece(new Pawn(Player.Black), new Position("h8"));
+        board.placePiece(new Pawn(Player.White), new Position("e2"));
+        assertEquals(1L | 1L << 12, board.getOccupied(Player.White));
+        assertEquals(1L << 63, board.getOccupied(Player.Black));
+        assertEquals(1L | 1L << 12 | 1L << 63, board.getOccupied());
+        assertEquals(1L << 12, board.getPieces(Player.White, PieceType.Pawn));
+
+        // Replace the white pawn with a black knight
+        board.placePiece(new Knight(Player.Black), new Position("e2"));
+        assertEquals(0L, board.getPieces(Player.White, PieceType.Pawn));
+        assertEquals(1L << 12, board.getPieces(Player.Black, PieceType.Knight));
+        assertTrue(board.getPieceAt(new Position("e2")) instanceof Knight);
+
+        board.removePiece(new Position("a1"));
+        assertNull(board.getPieceAt(new Position("a1")));
+        assertEquals(0L, board.getOccupied(Player.White));
+
+        board.clear();
+        assertEquals(0L, board.getOccupied());
+    }
+}
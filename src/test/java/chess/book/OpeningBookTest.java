@@ -0,0 +1,142 @@
+package chess.book;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import chess.GameState;
+import chess.engine.Search;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import chess.engine.TranspositionTable;
+import chess.pieces.move.Move;
+import chess.pieces.move.MoveList;
+
+import static junit.framework.Assert.*;
+
+/**
+ * Unit tests for the OpeningBookBuilder and OpeningBook
+ */
+public class OpeningBookTest {
+
+    @Test
+    public void testBuildAndLookup() throws IOException {
+        OpeningBookBuilder builder = new OpeningBookBuilder(4);
+        builder.addGame(game("e2 e4", "e7 e5", "g1 f3", "b8 c6", "f1 b5"));
+        builder.addGame(game("e2 e4", "c7 c5"));
+        builder.addGame(game("d2 d4", "d7 d5"));
+        // Many more positions, played once each, so the lookups have to search
+        MoveList moves = new MoveList();
+        for (int walk = 0; walk < 50; walk++) {
+            GameState state = new GameState();
+            state.reset();
+            for (int ply = 0; ply < 4 && state.generateMoves(moves) > 0; ply++) {
+                state.makeMove(moves.get((walk * 7 + ply * 13) % moves.size()));
+                moves.clear();
+            }
+            builder.addGame(state);
+        }
+
+        File file = File.createTempFile("openings", ".cbk");
+        file.deleteOnExit();
+        int written = builder.write(file.toPath(), 1);
+        assertEquals(builder.size(), written);
+
+        OpeningBook book = new OpeningBook(file.toPath());
+        try {
+            assertEquals(written, book.size());
+            GameState state = new GameState();
+            state.reset();
+            moves.clear();
+            int[] weights = new int[MoveList.DEFAULT_CAPACITY];
+            int count = book.getMoves(state, moves, weights);
+            assertTrue(count > 2);
+            assertEquals("e2 e4", Move.toString(book.bestMove(state)));
+
+            assertTrue(state.movePiece("e2", "e4"));
+            assertTrue(state.movePiece("e7", "e5"));
+            assertTrue(state.movePiece("g1", "f3"));
+            moves.clear();
+            assertTrue(book.getMoves(state, moves, weights) >= 1);
+            assertEquals("b8 c6", Move.toString(book.bestMove(state)));
+            assertTrue(state.movePiece("b8", "c6"));
+            assertEquals("Only four moves of each game are kept", Move.NONE, book.bestMove(state));
+        } finally {
+            book.close();
+        }
+
+        // Moves played once are left out; a new file, since the old mapping may outlive the close
+        File commonFile = File.createTempFile("openings", ".cbk");
+        commonFile.deleteOnExit();
+        int common = builder.write(commonFile.toPath(), 2);
+        assertTrue(common > 0 && common < written);
+        book = new OpeningBook(commonFile.toPath());
+        try {
+            GameState state = game("e2 e4", "e7 e5", "g1 f3");
+            assertEquals(Move.NONE, book.bestMove(state));
+        } finally {
+            book.close();
+        }
+    }
+
+    @Test
+    public void testCaptureInBook() throws IOException {
+        OpeningBookBuilder builder = new OpeningBookBuilder(4);
+        builder.addGame(game("e2 e4", "d7 d5", "e4 d5", "d8 d5"));
+        File file = File.createTempFile("openings", ".cbk");
+        file.deleteOnExit();
+        builder.write(file.toPath(), 1);
+
+        OpeningBook book = new OpeningBook(file.toPath());
+        try {
+            GameState state = game("e2 e4", "d7 d5");
+            int move = book.bestMove(state);
+            assertEquals("e4 d5", Move.toString(move));
+            assertTrue("The move is the generated one", Move.isCapture(move));
+            state.makeMove(move);
+            assertEquals("d8 d5", Move.toString(book.bestMove(state)));
+        } finally {
+            book.close();
+        }
+    }
+
+    @Test
+    public void testSearchPlaysFromBook() throws IOException {
+        OpeningBookBuilder builder = new OpeningBookBuilder(10);
+        builder.addGame(game("d2 d4", "g8 f6"));
+        File file = File.createTempFile("openings", ".cbk");
+        file.deleteOnExit();
+        builder.write(file.toPath(), 1);
+
+        OpeningBook book = new OpeningBook(file.toPath());
+        try {
+            GameState state = new GameState();
+            state.reset();
+            Search search = new Search(state, new TranspositionTable(1));
+            search.setBook(book);
+            SearchResult result = search.search(SearchLimits.depth(4));
+            assertEquals("d2 d4", Move.toString(result.getBestMove()));
+            assertEquals("A book move is not searched", 0L, result.getNodes());
+
+            assertTrue(state.movePiece("e2", "e4"));
+            result = search.search(SearchLimits.depth(2));
+            assertTrue("Out of the book the position is searched", result.getNodes() > 0);
+        } finally {
+            book.close();
+        }
+    }
+
+    /**
+     * @param moves The moves from the initial position, in the CLI format
+     */
+    private static GameState game(String... moves) {
+        GameState state = new GameState();
+        state.reset();
+        for (String move : moves) {
+            String[] squares = move.split(" ");
+            assertTrue(move, state.movePiece(squares[0], squares[1]));
+        }
+        return state;
+    }
+}
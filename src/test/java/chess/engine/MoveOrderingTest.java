@@ -0,0 +1,50 @@
+package chess.engine;
+
+import org.junit.Test;
+
+import chess.GameState;
+import chess.Player;
+import chess.Position;
+import chess.pieces.move.Move;
+import chess.pieces.move.MoveList;
+
+import static junit.framework.Assert.*;
+
+/**
+ * Unit tests for the MoveOrdering
+ */
+public class MoveOrderingTest {
+
+    @Test
+    public void testOrder() {
+        // The pawn can take the rook on d5 and the queen the pawn on a7
+        GameState state = GameState.fromFen("4k3/p7/8/3r4/4P3/8/8/Q3K3 w - - 0 1");
+        MoveOrdering ordering = new MoveOrdering();
+        ordering.newSearch();
+        int hashMove = move("e1", "f2", 0);
+        int killer = move("a1", "b1", 0);
+        int historyMove = move("a1", "c1", 0);
+        ordering.recordCutoff(Player.White, killer, 1, 3);
+        ordering.recordCutoff(Player.White, historyMove, 2, 5);
+
+        MoveList moves = new MoveList();
+        int count = state.generateMoves(moves);
+        int[] scores = new int[count];
+        ordering.score(state, moves, scores, hashMove, 3);
+
+        int[] expected = {
+                hashMove,
+                move("e4", "d5", Move.CAPTURE),
+                move("a1", "a7", Move.CAPTURE),
+                killer,
+                historyMove};
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals("Move " + i, Move.toString(expected[i]), Move.toString(ordering.pickNext(moves, scores, i)));
+        }
+        assertEquals("Every move is still in the list", count, moves.size());
+    }
+
+    private static int move(String from, String to, int flags) {
+        return Move.create(Position.of(from).index(), Position.of(to).index(), flags);
+    }
+}
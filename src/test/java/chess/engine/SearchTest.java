@@ -0,0 +1,83 @@
+package chess.engine;
+
+import org.junit.Test;
+
+import chess.GameState;
+import chess.Position;
+import chess.pieces.move.Move;
+
+import static junit.framework.Assert.*;
+
+/**
+ * Unit tests for the Search
+ */
+public class SearchTest {
+
+    @Test
+    public void testFindsMateInOne() {
+        GameState state = GameState.fromFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        long hash = state.hashKey();
+        SearchResult result = new Search(state, new TranspositionTable(1)).search(SearchLimits.depth(4));
+
+        assertEquals("a1 a8", Move.toString(result.getBestMove()));
+        assertEquals(Search.MATE - 1, result.getScore());
+        assertEquals("mate 1", result.getScoreString());
+        assertEquals("The quiescence search should see the mate in the first iteration", 1, result.getDepth());
+        assertEquals("The position should be left as it was", hash, state.hashKey());
+    }
+
+    @Test
+    public void testWinsMaterial() {
+        // The knight on c3 can take the undefended queen on d5
+        GameState state = GameState.fromFen("4k3/8/8/3q4/8/2N5/8/4K3 w - - 0 1");
+        SearchResult result = new Search(state, new TranspositionTable(1)).search(SearchLimits.depth(3));
+
+        assertEquals(Move.create(Position.of("c3").index(), Position.of("d5").index(), Move.CAPTURE),
+                result.getBestMove());
+        assertTrue(result.getScore() > 0);
+        assertEquals("c3 d5", result.getPrincipalVariationString().substring(0, 5));
+    }
+
+    @Test
+    public void testLimits() {
+        GameState state = new GameState();
+        state.reset();
+        Search search = new Search(state, new TranspositionTable(1));
+
+        SearchResult result = search.search(SearchLimits.nodes(5000));
+        assertTrue(result.getBestMove() != Move.NONE);
+        assertTrue("The budget only cuts an iteration short once a few nodes over it",
+                result.getNodes() < 5000 + 1024);
+
+        result = search.search(SearchLimits.moveTime(50));
+        assertTrue(result.getBestMove() != Move.NONE);
+        assertTrue(result.getDepth() < SearchLimits.MAX_DEPTH);
+    }
+
+    @Test
+    public void testLazySmp() {
+        GameState state = GameState.fromFen("4k3/8/8/3q4/8/2N5/8/4K3 w - - 0 1");
+        long hash = state.hashKey();
+        Search search = new Search(state, new TranspositionTable(1));
+        search.setThreads(4);
+        SearchResult result = search.search(SearchLimits.depth(4));
+
+        assertEquals("c3 d5", Move.toString(result.getBestMove()));
+        assertEquals(4, result.getDepth());
+        assertEquals("The helpers should leave the position alone", hash, state.hashKey());
+
+        // Helpers stop with the main thread even when it finishes at once
+        result = search.search(SearchLimits.depth(1));
+        assertEquals(1, result.getDepth());
+    }
+
+    @Test
+    public void testNoMoves() {
+        // Black is stalemated
+        GameState state = GameState.fromFen("k7/8/1Q6/8/8/8/8/2K5 b - - 0 1");
+        SearchResult result = new Search(state, new TranspositionTable(1)).search(SearchLimits.depth(3));
+
+        assertEquals(Move.NONE, result.getBestMove());
+        assertEquals(0, result.getScore());
+    }
+}
@@ -0,0 +1,53 @@
+package chess.engine;
+
+import org.junit.Test;
+
+import chess.GameState;
+import chess.Position;
+import chess.pieces.move.Move;
+
+import static junit.framework.Assert.*;
+
+/**
+ * Unit tests for the StaticExchange
+ */
+public class StaticExchangeTest {
+
+    private final StaticExchange exchange = new StaticExchange();
+
+    @Test
+    public void testExchanges() {
+        // The knight on d5 is defended by the pawn on c6 and the pawn on a2 is not defended at all
+        GameState state = GameState.fromFen("4k3/8/2p5/3n4/4P3/8/p7/1Q2K3 w - - 0 1");
+        assertEquals("Pawn takes knight, pawn takes back", 220, see(state, "e4", "d5"));
+        assertEquals("Queen takes a free pawn", 100, see(state, "b1", "a2"));
+
+        // The pawn on d5 is defended by the pawn on c6
+        state = GameState.fromFen("4k3/8/2p5/3p4/8/8/8/3QK3 w - - 0 1");
+        assertEquals("Queen takes pawn, pawn takes queen", -800, see(state, "d1", "d5"));
+    }
+
+    @Test
+    public void testXRays() {
+        // The rook on a1 backs up the one on a2, so the rook on a8 defending a7 is not enough
+        GameState state = GameState.fromFen("r3k3/r7/8/8/8/8/R7/R3K3 w - - 0 1");
+        assertEquals(500, see(state, "a2", "a7"));
+
+        // A king never takes back into a defended square
+        state = GameState.fromFen("8/8/8/8/8/5k2/4p3/3QK2R w - - 0 1");
+        assertEquals(100, see(state, "d1", "e2"));
+    }
+
+    @Test
+    public void testQuiescenceAvoidsLosingCaptures() {
+        // At depth 1 the pawn on d5 looks free, until the recapture is searched
+        GameState state = GameState.fromFen("4k3/8/2p5/3p4/8/8/8/3QK3 w - - 0 1");
+        SearchResult result = new Search(state, new TranspositionTable(1)).search(SearchLimits.depth(1));
+        assertFalse("d1 d5".equals(Move.toString(result.getBestMove())));
+        assertTrue("A queen against two pawns", result.getScore() > 500);
+    }
+
+    private int see(GameState state, String from, String to) {
+        return exchange.evaluate(state, Move.create(Position.of(from).index(), Position.of(to).index(), Move.CAPTURE));
+    }
+}
@@ -0,0 +1,91 @@
+package chess.engine;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.*;
+
+/**
+ * Unit tests for the TranspositionTable
+ */
+public class TranspositionTableTest {
+
+    @Test
+    public void testStoreAndProbe() {
+        TranspositionTable table = new TranspositionTable(1);
+        assertEquals("1 MB holds 65536 entries", 65536, table.getCapacity());
+
+        long key = 0x123456789abcdefL;
+        assertEquals(0L, table.probe(key));
+        table.store(key, 1234, -250, 7, TranspositionTable.BOUND_LOWER);
+        long data = table.probe(key);
+        assertEquals(1234, TranspositionTable.move(data));
+        assertEquals(-250, TranspositionTable.score(data));
+        assertEquals(7, TranspositionTable.depth(data));
+        assertEquals(TranspositionTable.BOUND_LOWER, TranspositionTable.bound(data));
+
+        // Another position in the same slot does not match
+        assertEquals(0L, table.probe(key + table.getCapacity()));
+        assertEquals(1, table.getHits());
+        assertEquals(2, table.getMisses());
+    }
+
+    @Test
+    public void testDepthPreferredReplacement() {
+        TranspositionTable table = new TranspositionTable(1);
+        long deep = 42L;
+        long shallow = 42L + table.getCapacity();
+
+        table.store(deep, 1, 10, 8, TranspositionTable.BOUND_EXACT);
+        table.store(shallow, 2, 20, 3, TranspositionTable.BOUND_EXACT);
+        assertEquals("A shallower search keeps out", 8, TranspositionTable.depth(table.probe(deep)));
+        assertEquals(0L, table.probe(shallow));
+        assertEquals(0, table.getOverwrites());
+
+        // Same position: always updated, keeping the old move when there is no new one
+        table.store(deep, 0, 15, 2, TranspositionTable.BOUND_UPPER);
+        long data = table.probe(deep);
+        assertEquals(2, TranspositionTable.depth(data));
+        assertEquals(1, TranspositionTable.move(data));
+
+        table.store(deep, 1, 10, 8, TranspositionTable.BOUND_EXACT);
+        table.newSearch();
+        table.store(shallow, 2, 20, 3, TranspositionTable.BOUND_EXACT);
+        assertEquals("Entries from an earlier search can be replaced", 3, TranspositionTable.depth(table.probe(shallow)));
+        assertEquals(1, table.getOverwrites());
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        final TranspositionTable table = new TranspositionTable(1);
+        final AtomicInteger corrupt = new AtomicInteger();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final long seed = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Random random = new Random(seed);
+                    for (int i = 0; i < 200000; i++) {
+                        // Few distinct keys so threads keep colliding; the data is derived from the key
+                        long key = random.nextInt(4096) * 0x9E3779B97F4A7C15L;
+                        long data = table.probe(key);
+                        if (data != 0 && TranspositionTable.score(data) != (short) (key >>> 48)) {
+                            corrupt.incrementAndGet();
+                        }
+                        table.store(key, (int) (key & 0xfff), (short) (key >>> 48), random.nextInt(20),
+                                TranspositionTable.BOUND_EXACT);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals("No reader should see another position's data", 0, corrupt.get());
+        assertEquals(800000, table.getHits() + table.getMisses());
+    }
+}
@@ -0,0 +1,52 @@
+package chess.eval;
+
+import org.junit.Test;
+
+import chess.GameState;
+import chess.Player;
+import chess.pieces.move.MoveList;
+
+import static junit.framework.Assert.*;
+
+/**
+ * Unit tests for the Evaluation
+ */
+public class EvaluationTest {
+
+    @Test
+    public void testInitialPosition() {
+        GameState state = new GameState();
+        state.reset();
+        assertEquals("The position is symmetric", 0, state.getEvaluation().score(Player.White));
+        assertEquals(PieceSquareTables.MAX_PHASE, state.getEvaluation().getPhase());
+    }
+
+    @Test
+    public void testIncrementalUpdates() {
+        GameState state = GameState.fromFen("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10");
+        int initial = state.getEvaluation().score(Player.White);
+
+        // Walk down a line of captures and quiet moves, checking against a full rescan at every step
+        MoveList moves = new MoveList();
+        for (int ply = 0; ply < 30 && state.generateMoves(moves) > 0; ply++) {
+            state.makeMove(moves.get((ply * 11) % moves.size()));
+            moves.clear();
+            for (Player player : Player.values()) {
+                assertEquals(Evaluation.evaluate(state.getBoard(), player), state.getEvaluation().score(player));
+            }
+        }
+        while (state.getMoveCount() > 0) {
+            state.unmakeMove();
+        }
+        assertEquals(initial, state.getEvaluation().score(Player.White));
+    }
+
+    @Test
+    public void testTapering() {
+        // With only kings and pawns left the endgame values count alone, and a passed pawn far up is worth more
+        GameState state = GameState.fromFen("4k3/8/1P6/8/8/8/6P1/4K3 w - - 0 1");
+        assertEquals(0, state.getEvaluation().getPhase());
+        assertTrue(state.getEvaluation().score(Player.White) > 2 * 94);
+        assertEquals(-state.getEvaluation().score(Player.White), state.getEvaluation().score(Player.Black));
+    }
+}
@@ -0,0 +1,66 @@
+package chess.perft;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+import chess.GameState;
+import static junit.framework.Assert.*;
+
+/**
+ * Checks move generation against the published perft counts
+ */
+public class PerftTest {
+
+    @Test
+    public void testReferencePositions() {
+        for (PerftSuite.Reference reference : PerftSuite.REFERENCES) {
+            GameState state = GameState.fromFen(reference.getFen());
+            long hash = state.hashKey();
+            Perft perft = new Perft(state);
+            for (int depth = 1; depth <= Math.min(3, reference.getMaxDepth()); depth++) {
+                long expected = reference.getNodes(depth);
+                if (expected != 0) {
+                    assertEquals(reference.getName() + " at depth " + depth, expected, perft.perft(depth));
+                }
+            }
+            assertEquals("Counting should leave the position as it was", hash, state.hashKey());
+        }
+    }
+
+    @Test
+    public void testParallelPerft() {
+        GameState state = new GameState();
+        state.reset();
+        long hash = state.hashKey();
+        ParallelPerft perft = new ParallelPerft(state, 2, true, null);
+        assertEquals(197281L, perft.perft(4));
+        long threadTotal = 0;
+        for (long nodes : perft.getThreadNodes().values()) {
+            threadTotal += nodes;
+        }
+        assertEquals("Every node should be counted by some thread", 197281L, threadTotal);
+        assertEquals("The position should be left as it was", hash, state.hashKey());
+
+        // Transposed subtrees come from the cache, with the same result; transpositions start at the third ply.
+        // Without castling and en passant there are 258 fewer nodes than the published 4865609.
+        PerftCache cache = new PerftCache(4);
+        assertEquals(4865351L, new ParallelPerft(state, 2, false, cache).perft(5));
+        assertTrue(cache.getHits() > 0);
+    }
+
+    @Test
+    public void testDivide() {
+        GameState state = new GameState();
+        state.reset();
+        Map<String, Long> divide = new Perft(state).divide(3);
+
+        assertEquals(20, divide.size());
+        long total = 0;
+        for (long nodes : divide.values()) {
+            total += nodes;
+        }
+        assertEquals(8902L, total);
+        assertEquals(Long.valueOf(600L), divide.get("e2 e4"));
+    }
+}
@@ -0,0 +1,146 @@
+package chess.pgn;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+import chess.GameState;
+import chess.pieces.move.Move;
+import chess.pieces.move.MoveList;
+
+import static junit.framework.Assert.*;
+
+/**
+ * Unit tests for the PgnReader, San and PgnImporter
+ */
+public class PgnImporterTest {
+
+    private static final String GAMES =
+            "[Event \"Scholar's mate\"]\r\n" +
+            "[White \"A\"]\r\n" +
+            "[Black \"B\"]\r\n" +
+            "\r\n" +
+            "1. e4 e5 2. Bc4 {a comment [not a tag]} Nc6 3. Qh5 Nf6?? 4. Qxf7# 1-0\r\n" +
+            "\r\n" +
+            "[Event \"Variations\"]\n" +
+            "[White \"C \\\"the quoted\\\"\"]\n" +
+            "\n" +
+            "1.d4 d5 2.Nf3 (2.c4 dxc4) 2...Nf6 $1 3.Nbd2 ; a rest of line comment e4\n" +
+            "3... e6 *\n" +
+            "\n" +
+            "[Event \"Castles\"]\n" +
+            "\n" +
+            "1. e4 e5 2. Nf3 Nc6 3. Bc4 Bc5 4. O-O Nf6 1/2-1/2\n" +
+            "\n" +
+            "[Event \"Illegal\"]\n" +
+            "\n" +
+            "1. e4 e5 2. Ke3 1-0\n" +
+            "\n" +
+            "[Event \"Played on after mate\"]\n" +
+            "\n" +
+            "1. f3 e5 2. g4 Qh4# 3. a3 0-1\n";
+
+    @Test
+    public void testReader() throws IOException {
+        // A tiny buffer, so lines and games straddle refills
+        PgnReader reader = new PgnReader(Channels.newChannel(new ByteArrayInputStream(GAMES.getBytes("ISO-8859-1"))), 7);
+        PgnGame game = reader.next();
+        assertEquals(1L, game.getNumber());
+        assertEquals("Scholar's mate", game.getTag("Event"));
+        assertEquals(Arrays.asList("e4", "e5", "Bc4", "Nc6", "Qh5", "Nf6??", "Qxf7#"), game.getMoves());
+
+        game = reader.next();
+        assertEquals("C \"the quoted\"", game.getTag("White"));
+        assertEquals("Variations are skipped", Arrays.asList("d4", "d5", "Nf3", "Nf6", "Nbd2", "e6"), game.getMoves());
+
+        assertEquals("Castles", reader.next().getTag("Event"));
+        assertEquals(4L, reader.next().getNumber());
+        assertEquals(5L, reader.next().getNumber());
+        assertNull(reader.next());
+        reader.close();
+    }
+
+    @Test
+    public void testResolve() {
+        GameState state = new GameState();
+        state.reset();
+        MoveList moves = new MoveList();
+        for (String san : new String[] {"d4", "d5", "Nf3", "Nf6"}) {
+            state.makeMove(San.resolve(state, san, moves));
+        }
+        assertEquals("Both knights reach d2", Move.NONE, San.resolve(state, "Nd2", moves));
+        assertEquals("b1 d2", Move.toString(San.resolve(state, "Nbd2", moves)));
+        assertEquals("f3 d2", Move.toString(San.resolve(state, "N3d2+", moves)));
+        assertEquals("Nothing to capture on e5", Move.NONE, San.resolve(state, "Nxe5", moves));
+        assertEquals("f3 e5", Move.toString(San.resolve(state, "Ne5", moves)));
+        assertEquals(Move.NONE, San.resolve(state, "O-O", moves));
+        assertEquals(Move.NONE, San.resolve(state, "Qd5", moves));
+    }
+
+    @Test
+    public void testImport() throws IOException {
+        File file = File.createTempFile("games", ".pgn");
+        file.deleteOnExit();
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(GAMES.getBytes("ISO-8859-1"));
+        } finally {
+            out.close();
+        }
+
+        final Map<String, String> broken = new TreeMap<String, String>();
+        PgnImporter importer = new PgnImporter(2, new PgnImporter.Listener() {
+            @Override
+            public void gameReplayed(PgnGame game, int plies) {
+            }
+
+            @Override
+            public synchronized void gameBroken(PgnGame game, int ply, String san, String reason) {
+                broken.put(game.getTag("Event"), ply + " " + san + ": " + reason);
+            }
+        });
+        PgnImporter.Summary summary = importer.importFile(file.toPath());
+
+        assertEquals(5L, summary.getGames());
+        assertEquals(3L, summary.getBrokenGames());
+        assertEquals("7 + 6 plies of the good games and 6 + 2 + 4 before the bad moves", 25L, summary.getPlies());
+        assertEquals("7 O-O: castling is not part of the game", broken.get("Castles"));
+        assertEquals("3 Ke3: no single legal move matches", broken.get("Illegal"));
+        assertEquals("5 a3: the game is already over", broken.get("Played on after mate"));
+    }
+
+    @Test
+    public void testListenerFailureEndsImport() throws IOException {
+        // Many more games than the queue holds, so a reader left waiting for the workers would block for good
+        StringBuilder games = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            games.append("[Event \"").append(i).append("\"]\n\n1. e4 e5 *\n\n");
+        }
+        PgnReader reader = new PgnReader(Channels.newChannel(new ByteArrayInputStream(games.toString().getBytes("ISO-8859-1"))), 64);
+        PgnImporter importer = new PgnImporter(2, new PgnImporter.Listener() {
+            @Override
+            public void gameReplayed(PgnGame game, int plies) {
+                throw new IllegalStateException("listener failed on " + game.getTag("Event"));
+            }
+
+            @Override
+            public void gameBroken(PgnGame game, int ply, String san, String reason) {
+            }
+        });
+        try {
+            importer.importGames(reader);
+            fail("The failure should be rethrown");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().startsWith("listener failed on "));
+        } finally {
+            reader.close();
+        }
+    }
+}
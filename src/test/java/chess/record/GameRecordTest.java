@@ -0,0 +1,122 @@
+package chess.record;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import chess.GameState;
+import chess.pieces.move.Move;
+import chess.pieces.move.MoveList;
+
+import static junit.framework.Assert.*;
+
+/**
+ * Unit tests for the GameRecordWriter and GameRecordReader
+ */
+public class GameRecordTest {
+
+    @Test
+    public void testWriteAndReplay() throws IOException {
+        File file = File.createTempFile("games", ".cgr");
+        file.deleteOnExit();
+        file.delete();
+
+        // Fool's mate, from the initial position
+        GameState mated = new GameState();
+        mated.reset();
+        assertTrue(mated.movePiece("f2", "f3"));
+        assertTrue(mated.movePiece("e7", "e5"));
+        assertTrue(mated.movePiece("g2", "g4"));
+        assertTrue(mated.movePiece("d8", "h4"));
+        assertTrue(mated.isOver());
+
+        // An unfinished game from a set-up position, with a capture
+        GameState endgame = GameState.fromFen("4k3/8/8/3p4/4P3/8/8/4K3 w - - 0 30");
+        assertTrue(endgame.movePiece("e4", "d5"));
+        assertTrue(endgame.movePiece("e8", "d7"));
+
+        GameRecordWriter writer = new GameRecordWriter(file.toPath());
+        writer.write(mated);
+        writer.close();
+        // A second writer appends
+        writer = new GameRecordWriter(file.toPath());
+        writer.write(endgame);
+        writer.write(mated);
+        writer.close();
+        assertEquals("Header, one game of 4 moves twice and one of 2 moves from a FEN", 8 + 2 * 12 + 4 + 34 + 4,
+                file.length());
+
+        // A window that holds one game at most, so each is mapped on its own
+        GameRecordReader reader = new GameRecordReader(file.toPath(), 44);
+        GameState state = new GameState();
+        assertTrue(reader.nextGame());
+        assertEquals(4, reader.getPlies());
+        assertEquals(GameRecordFormat.RESULT_BLACK_WINS, reader.getResult());
+        assertNull(reader.getStartFen());
+        reader.replay(state);
+        assertEquals(mated.toFen(), state.toFen());
+        assertEquals(mated.hashKey(), state.hashKey());
+
+        assertTrue(reader.nextGame());
+        assertEquals(GameRecordFormat.RESULT_UNKNOWN, reader.getResult());
+        assertEquals("4k3/8/8/3p4/4P3/8/8/4K3 w - - 0 30", reader.getStartFen());
+        assertEquals(endgame.getMove(0), reader.getMove(0));
+        reader.replay(state);
+        assertEquals("8/3k4/8/3P4/8/8/8/4K3 w - - 1 31", state.toFen());
+
+        assertTrue(reader.nextGame());
+        assertEquals(4, reader.getPlies());
+        assertFalse(reader.nextGame());
+        reader.close();
+    }
+
+    @Test
+    public void testVerifyCapture() throws IOException {
+        File file = File.createTempFile("games", ".cgr");
+        file.deleteOnExit();
+        file.delete();
+
+        GameState game = new GameState();
+        game.reset();
+        assertTrue(game.movePiece("e2", "e4"));
+        assertTrue(game.movePiece("d7", "d5"));
+        assertTrue(game.movePiece("e4", "d5"));
+        GameRecordWriter writer = new GameRecordWriter(file.toPath());
+        writer.write(game);
+        writer.close();
+
+        GameRecordReader reader = new GameRecordReader(file.toPath());
+        GameState state = new GameState();
+        assertTrue(reader.nextGame());
+        assertTrue("The capture is stored as generated", Move.isCapture(reader.getMove(2)));
+        assertEquals(-1, reader.verify(state, new MoveList()));
+        assertEquals(game.toFen(), state.toFen());
+        reader.close();
+    }
+
+    @Test
+    public void testRejectsOtherFiles() throws IOException {
+        File file = File.createTempFile("games", ".cgr");
+        file.deleteOnExit();
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write("1. e4 e5 2. Nf3 *".getBytes("US-ASCII"));
+        } finally {
+            out.close();
+        }
+        try {
+            new GameRecordReader(file.toPath());
+            fail("Should not read a text file");
+        } catch (IOException e) {
+            // Expected
+        }
+        try {
+            new GameRecordWriter(file.toPath());
+            fail("Should not append to a text file");
+        } catch (IOException e) {
+            // Expected
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package chess.tablebase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.Test;
+
+import chess.GameState;
+import chess.Player;
+import chess.engine.Search;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import chess.engine.TranspositionTable;
+import chess.pieces.PieceType;
+import chess.pieces.move.MoveList;
+
+import static junit.framework.Assert.*;
+
+/**
+ * Unit tests for the TablebaseGenerator and Tablebase
+ */
+public class TablebaseTest {
+
+    @Test
+    public void testMovesMatchGameState() {
+        Random random = new Random(7);
+        MoveList moves = new MoveList();
+        int[] children = new int[64];
+        for (PieceType type : TablebaseGenerator.PIECES) {
+            TablebaseGenerator generator = new TablebaseGenerator(type, 1);
+            int checked = 0;
+            while (checked < 200) {
+                int side = random.nextInt(2);
+                int strongKing = random.nextInt(64);
+                int weakKing = random.nextInt(64);
+                int piece = type == PieceType.Pawn ? 8 + random.nextInt(48) : random.nextInt(64);
+                String fen = fen(type, side, strongKing, weakKing, piece);
+                if (fen == null) {
+                    continue;
+                }
+                moves.clear();
+                int expected = GameState.fromFen(fen).generateMoves(moves);
+                int index = TablebaseIndex.full(side, strongKing, weakKing, piece);
+                assertEquals(fen, expected, generator.children(index, children));
+                checked++;
+            }
+        }
+    }
+
+    @Test
+    public void testGenerateAndProbe() throws IOException {
+        Path directory = Files.createTempDirectory("tables");
+        TablebaseGenerator rook = new TablebaseGenerator(PieceType.Rook, 2);
+        rook.generate();
+        File file = rook.write(directory).toFile();
+        file.deleteOnExit();
+        directory.toFile().deleteOnExit();
+        assertEquals(Tablebase.HEADER_SIZE + 2 * 10 * 64 * 64, file.length());
+
+        int longest = 0;
+        for (int index = 0; index < TablebaseIndex.FULL_SIZE; index++) {
+            longest = Math.max(longest, rook.getValue(TablebaseIndex.side(index), TablebaseIndex.strongKing(index),
+                    TablebaseIndex.weakKing(index), TablebaseIndex.piece(index)));
+        }
+        assertEquals("The longest rook mate is 16 moves", 31, longest);
+
+        Tablebase tablebase = new Tablebase(directory);
+        try {
+            assertTrue(tablebase.has(PieceType.Rook));
+            assertFalse(tablebase.has(PieceType.Queen));
+            assertEquals(Tablebase.winIn(1), tablebase.probe(GameState.fromFen("6k1/8/6K1/8/8/8/8/R7 w - - 0 1")));
+            // The same with colours swapped, and mirrored left to right
+            assertEquals(Tablebase.winIn(1), tablebase.probe(GameState.fromFen("7r/8/8/8/8/1k6/8/1K6 b - - 0 1")));
+            assertEquals(Tablebase.MATED, tablebase.probe(GameState.fromFen("R5k1/8/6K1/8/8/8/8/8 b - - 0 1")));
+            assertEquals(Tablebase.lossIn(2), tablebase.probe(GameState.fromFen("7k/8/6K1/8/8/8/8/1R6 b - - 0 1")));
+            assertEquals("The king takes the rook", Tablebase.DRAW,
+                    tablebase.probe(GameState.fromFen("8/8/8/8/8/8/1R6/k6K b - - 0 1")));
+            assertEquals(Tablebase.NOT_FOUND, tablebase.probe(GameState.fromFen("6k1/8/6K1/8/8/8/8/Q7 w - - 0 1")));
+
+            GameState state = GameState.fromFen("8/8/8/3k4/8/8/8/R3K3 w - - 0 1");
+            int value = tablebase.probe(state);
+            assertTrue(value > 0);
+            Search search = new Search(state, new TranspositionTable(1));
+            search.setTablebase(tablebase);
+            SearchResult result = search.search(SearchLimits.depth(2));
+            assertEquals("Every move is looked up, so the mate is seen at once", Search.MATE - value,
+                    result.getScore());
+        } finally {
+            tablebase.close();
+        }
+    }
+
+    @Test
+    public void testPawnEndingsAreDrawn() {
+        // Without promotion a pawn can never mate
+        TablebaseGenerator pawn = new TablebaseGenerator(PieceType.Pawn, 1);
+        pawn.generate();
+        for (int index = 0; index < TablebaseIndex.FULL_SIZE; index++) {
+            assertEquals(Tablebase.DRAW, pawn.getValue(TablebaseIndex.side(index), TablebaseIndex.strongKing(index),
+                    TablebaseIndex.weakKing(index), TablebaseIndex.piece(index)));
+        }
+    }
+
+    /**
+     * @return The FEN of a position of the ending with White as the strong side, or null if it is impossible
+     */
+    private static String fen(PieceType type, int side, int strongKing, int weakKing, int piece) {
+        if (strongKing == weakKing || strongKing == piece || weakKing == piece
+                || Math.abs((strongKing & 7) - (weakKing & 7)) <= 1 && Math.abs((strongKing >>> 3) - (weakKing >>> 3)) <= 1) {
+            return null;
+        }
+        char[] squares = new char[64];
+        squares[strongKing] = 'K';
+        squares[weakKing] = 'k';
+        squares[piece] = type == PieceType.Queen ? 'Q' : type == PieceType.Rook ? 'R' : 'P';
+        StringBuilder fen = new StringBuilder();
+        for (int rank = 7; rank >= 0; rank--) {
+            int empty = 0;
+            for (int file = 0; file < 8; file++) {
+                char square = squares[rank * 8 + file];
+                if (square == 0) {
+                    empty++;
+                } else {
+                    if (empty > 0) {
+                        fen.append(empty);
+                    }
+                    fen.append(square);
+                    empty = 0;
+                }
+            }
+            if (empty > 0) {
+                fen.append(empty);
+            }
+            if (rank > 0) {
+                fen.append('/');
+            }
+        }
+        // White to move with Black in check cannot come about
+        if (side == 0 && GameState.fromFen(fen + " w - - 0 1").isInCheck(Player.Black)) {
+            return null;
+        }
+        return fen + (side == 0 ? " w" : " b") + " - - 0 1";
+    }
+}